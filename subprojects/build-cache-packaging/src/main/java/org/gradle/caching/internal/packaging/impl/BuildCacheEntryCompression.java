@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression formats for build cache entries.
+ *
+ * Each format starts its stream with a distinct magic number, which serves as the format marker of an entry.
+ * This way entries can always be unpacked, regardless of the format selected for packing new entries.
+ */
+public enum BuildCacheEntryCompression {
+    GZIP(0x1f, 0x8b) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input);
+        }
+    },
+    /**
+     * The LZ4 frame format, which compresses less than GZIP, but is much faster to compress and to decompress.
+     */
+    LZ4(0x04, 0x22, 0x4d, 0x18) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new FramedLZ4CompressorOutputStream(output, new FramedLZ4CompressorOutputStream.Parameters(
+                FramedLZ4CompressorOutputStream.BlockSize.M4,
+                true,
+                false,
+                false,
+                BlockLZ4CompressorOutputStream.createParameterBuilder().tunedForSpeed().build()
+            ));
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new FramedLZ4CompressorInputStream(input);
+        }
+    };
+
+    public static final String COMPRESSION_PROPERTY = "org.gradle.unsafe.build-cache.compression";
+
+    static final int MAX_MAGIC_LENGTH = 4;
+
+    private final byte[] magic;
+
+    BuildCacheEntryCompression(int... magic) {
+        this.magic = new byte[magic.length];
+        for (int i = 0; i < magic.length; i++) {
+            this.magic[i] = (byte) magic[i];
+        }
+    }
+
+    public abstract OutputStream compress(OutputStream output) throws IOException;
+
+    public abstract InputStream decompress(InputStream input) throws IOException;
+
+    /**
+     * Returns whether an entry starting with the given bytes is compressed with this format.
+     */
+    boolean matches(byte[] header, int length) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static BuildCacheEntryCompression fromSystemProperties() {
+        String value = System.getProperty(COMPRESSION_PROPERTY);
+        if (value == null) {
+            return GZIP;
+        }
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unknown build cache entry compression '%s' set by %s, supported values are 'gzip' and 'lz4'.", value, COMPRESSION_PROPERTY), e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginReader;
+import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Map;
+
+/**
+ * Compresses entries with the selected {@link BuildCacheEntryCompression}, and decompresses entries with the format they were packed with.
+ */
+public class CompressingBuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private final BuildCacheEntryPacker delegate;
+    private final BuildCacheEntryCompression compression;
+
+    public CompressingBuildCacheEntryPacker(BuildCacheEntryPacker delegate, BuildCacheEntryCompression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    @Override
+    public PackResult pack(CacheableEntity entity, Map<String, CurrentFileCollectionFingerprint> fingerprints, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        try (OutputStream compressedOutput = compression.compress(output)) {
+            return delegate.pack(entity, fingerprints, compressedOutput, writeOrigin);
+        }
+    }
+
+    @Override
+    public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        PushbackInputStream headerInput = new PushbackInputStream(input, BuildCacheEntryCompression.MAX_MAGIC_LENGTH);
+        try (InputStream compressedInput = detectCompression(headerInput).decompress(headerInput)) {
+            return delegate.unpack(entity, compressedInput, readOrigin);
+        }
+    }
+
+    private static BuildCacheEntryCompression detectCompression(PushbackInputStream input) throws IOException {
+        byte[] header = new byte[BuildCacheEntryCompression.MAX_MAGIC_LENGTH];
+        int length = 0;
+        while (length < header.length) {
+            int read = input.read(header, length, header.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        input.unread(header, 0, length);
+        for (BuildCacheEntryCompression candidate : BuildCacheEntryCompression.values()) {
+            if (candidate.matches(header, length)) {
+                return candidate;
+            }
+        }
+        // Entries without a known marker are unpacked as before, so that invalid entries are reported the same way
+        return BuildCacheEntryCompression.GZIP;
+    }
+}
@@ -20,6 +20,7 @@
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
@@ -35,6 +36,7 @@
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.internal.IoActions;
 import org.gradle.internal.MutableLong;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
@@ -51,6 +53,7 @@
 
 import javax.annotation.Nullable;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -63,8 +66,16 @@
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -73,6 +84,8 @@
 
 /**
  * Packages build cache entries to a POSIX TAR file.
+ *
+ * When unpacking, the archive is read on the calling thread, while small files are written and hashed on the given executor.
  */
 public class TarBuildCacheEntryPacker implements BuildCacheEntryPacker {
 
@@ -96,14 +109,21 @@ protected byte[] initialValue() {
         }
     };
 
+    // Larger files are unpacked on the reading thread, so that their contents don't need to be held in memory
+    private static final int MAX_ASYNC_FILE_SIZE = 1024 * 1024;
+    // The reading thread waits for the oldest pending files once this many bytes are held in memory
+    private static final long MAX_PENDING_BYTES = 16 * 1024 * 1024;
+
     private final FileSystem fileSystem;
     private final StreamHasher streamHasher;
     private final Interner<String> stringInterner;
+    private final Executor unpackExecutor;
 
-    public TarBuildCacheEntryPacker(FileSystem fileSystem, StreamHasher streamHasher, Interner<String> stringInterner) {
+    public TarBuildCacheEntryPacker(FileSystem fileSystem, StreamHasher streamHasher, Interner<String> stringInterner, Executor unpackExecutor) {
         this.fileSystem = fileSystem;
         this.streamHasher = streamHasher;
         this.stringInterner = stringInterner;
+        this.unpackExecutor = unpackExecutor;
     }
 
     @Override
@@ -247,7 +267,7 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
             if (isDirEntry) {
                 throw new IllegalStateException("Should be a file: " + treeName);
             }
-            RegularFileSnapshot fileSnapshot = unpackFile(input, rootEntry, treeRoot, treeRoot.getName());
+            RegularFileSnapshot fileSnapshot = unpackFile(input, rootEntry.getMode(), treeRoot, treeRoot.getName());
             snapshots.put(treeName, fileSnapshot);
             return input.getNextTarEntry();
         }
@@ -255,7 +275,7 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
         if (!isDirEntry) {
             throw new IllegalStateException("Should be a directory: " + treeName);
         }
-        chmodUnpackedFile(rootEntry, treeRoot);
+        chmodUnpackedFile(rootEntry.getMode(), treeRoot);
 
         return unpackDirectoryTree(input, rootEntry, snapshots, entries, treeRoot, treeName);
     }
@@ -269,12 +289,12 @@ private void unpackMissingFile(File treeRoot) throws IOException {
         }
     }
 
-    private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+    private RegularFileSnapshot unpackFile(InputStream input, int mode, File file, String fileName) throws IOException {
         CountingOutputStream output = new CountingOutputStream(new FileOutputStream(file));
         HashCode hash;
         try {
             hash = streamHasher.hashCopy(input, output);
-            chmodUnpackedFile(entry, file);
+            chmodUnpackedFile(mode, file);
         } finally {
             IoActions.closeQuietly(output);
         }
@@ -288,47 +308,175 @@ private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArch
         RelativePathParser parser = new RelativePathParser();
         parser.rootPath(rootEntry.getName());
 
-        MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+        PendingTreeSnapshot builder = new PendingTreeSnapshot();
         String rootPath = stringInterner.intern(treeRoot.getAbsolutePath());
         String rootDirName = stringInterner.intern(treeRoot.getName());
         builder.preVisitDirectory(rootPath, rootDirName);
 
         TarArchiveEntry entry;
 
-        while ((entry = input.getNextTarEntry()) != null) {
-            boolean isDir = entry.isDirectory();
-            int directoriesLeft = parser.nextPath(entry.getName(), isDir);
-            for (int i = 0; i < directoriesLeft; i++) {
+        try {
+            while ((entry = input.getNextTarEntry()) != null) {
+                boolean isDir = entry.isDirectory();
+                int directoriesLeft = parser.nextPath(entry.getName(), isDir);
+                for (int i = 0; i < directoriesLeft; i++) {
+                    builder.postVisitDirectory();
+                }
+                if (parser.getDepth() == 0) {
+                    break;
+                }
+                entries.increment(1);
+
+                File file = new File(treeRoot, parser.getRelativePath());
+                if (isDir) {
+                    FileUtils.forceMkdir(file);
+                    chmodUnpackedFile(entry.getMode(), file);
+                    String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
+                    String internedDirName = stringInterner.intern(parser.getName());
+                    builder.preVisitDirectory(internedAbsolutePath, internedDirName);
+                } else if (entry.getSize() <= MAX_ASYNC_FILE_SIZE) {
+                    byte[] content = IOUtils.toByteArray(input, entry.getSize());
+                    int mode = entry.getMode();
+                    String fileName = parser.getName();
+                    UnpackFileTask unpackTask = new UnpackFileTask(() -> unpackFile(new ByteArrayInputStream(content), mode, file, fileName));
+                    unpackExecutor.execute(unpackTask);
+                    builder.visitFile(unpackTask, content.length);
+                } else {
+                    RegularFileSnapshot fileSnapshot = unpackFile(input, entry.getMode(), file, parser.getName());
+                    builder.visitFile(fileSnapshot);
+                }
+            }
+
+            for (int i = 0; i < parser.getDepth(); i++) {
                 builder.postVisitDirectory();
             }
-            if (parser.getDepth() == 0) {
-                break;
+
+            snapshots.put(treeName, builder.getResult());
+            return entry;
+        } finally {
+            builder.cancel();
+        }
+    }
+
+    private void chmodUnpackedFile(int mode, File file) {
+        fileSystem.chmod(file, mode & UnixPermissions.PERM_MASK);
+    }
+
+    /**
+     * Builds the snapshot of an unpacked tree while some of its files are still being unpacked.
+     *
+     * The visits are queued up and applied in order once the files visited before them have been unpacked.
+     */
+    private static class PendingTreeSnapshot {
+        private final MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+        private final Deque<PendingVisit> pendingVisits = new ArrayDeque<>();
+        private long pendingBytes;
+
+        void preVisitDirectory(String absolutePath, String name) {
+            pendingVisits.add(builder -> builder.preVisitDirectory(absolutePath, name));
+        }
+
+        void visitFile(RegularFileSnapshot fileSnapshot) {
+            pendingVisits.add(builder -> builder.visitFile(fileSnapshot));
+        }
+
+        void visitFile(UnpackFileTask fileSnapshot, long size) throws IOException {
+            pendingVisits.add(new PendingFile(fileSnapshot, size));
+            pendingBytes += size;
+            while (pendingBytes > MAX_PENDING_BYTES) {
+                pendingVisits.remove().applyTo(builder);
             }
-            entries.increment(1);
+        }
 
-            File file = new File(treeRoot, parser.getRelativePath());
-            if (isDir) {
-                FileUtils.forceMkdir(file);
-                chmodUnpackedFile(entry, file);
-                String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
-                String internedDirName = stringInterner.intern(parser.getName());
-                builder.preVisitDirectory(internedAbsolutePath, internedDirName);
-            } else {
-                RegularFileSnapshot fileSnapshot = unpackFile(input, entry, file, parser.getName());
-                builder.visitFile(fileSnapshot);
+        void postVisitDirectory() {
+            pendingVisits.add(builder -> builder.postVisitDirectory());
+        }
+
+        FileSystemLocationSnapshot getResult() throws IOException {
+            while (!pendingVisits.isEmpty()) {
+                pendingVisits.remove().applyTo(builder);
             }
+            return builder.getResult();
         }
 
-        for (int i = 0; i < parser.getDepth(); i++) {
-            builder.postVisitDirectory();
+        /**
+         * Cancels the files still waiting to be unpacked, and waits for the ones already being unpacked.
+         */
+        void cancel() {
+            for (PendingVisit pendingVisit : pendingVisits) {
+                if (pendingVisit instanceof PendingFile) {
+                    ((PendingFile) pendingVisit).cancel();
+                }
+            }
+            pendingVisits.clear();
+        }
+
+        private interface PendingVisit {
+            void applyTo(MerkleDirectorySnapshotBuilder builder) throws IOException;
         }
 
-        snapshots.put(treeName, builder.getResult());
-        return entry;
+        private class PendingFile implements PendingVisit {
+            private final UnpackFileTask fileSnapshot;
+            private final long size;
+
+            PendingFile(UnpackFileTask fileSnapshot, long size) {
+                this.fileSnapshot = fileSnapshot;
+                this.size = size;
+            }
+
+            @Override
+            public void applyTo(MerkleDirectorySnapshotBuilder builder) throws IOException {
+                pendingBytes -= size;
+                try {
+                    builder.visitFile(fileSnapshot.get());
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw UncheckedException.throwAsUncheckedException(e.getCause());
+                }
+            }
+
+            void cancel() {
+                fileSnapshot.cancelOrAwait();
+            }
+        }
     }
 
-    private void chmodUnpackedFile(TarArchiveEntry entry, File file) {
-        fileSystem.chmod(file, entry.getMode() & UnixPermissions.PERM_MASK);
+    /**
+     * Unpacks a file on the executor. Unlike {@link FutureTask#cancel(boolean)}, cancelling waits for the file to be written when the task has started already,
+     * so that no file is written after the unpacking has been abandoned.
+     */
+    private static class UnpackFileTask extends FutureTask<RegularFileSnapshot> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        UnpackFileTask(Callable<RegularFileSnapshot> unpackAction) {
+            super(unpackAction);
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                // Cancelled before it started
+                return;
+            }
+            try {
+                super.run();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        void cancelOrAwait() {
+            if (claimed.compareAndSet(false, true)) {
+                cancel(false);
+            } else {
+                Uninterruptibles.awaitUninterruptibly(finished);
+            }
+        }
     }
 
     private static String escape(String name) {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.origin.OriginReader
+import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.ZipException
+
+class CompressingBuildCacheEntryPackerTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def entity = Stub(CacheableEntity)
+    def readOrigin = Stub(OriginReader)
+    def writeOrigin = Stub(OriginWriter)
+    def delegate = Mock(BuildCacheEntryPacker)
+    def content = ("some content " * 1000).bytes
+
+    @Unroll
+    def "can unpack #packedWith entry when packing with #packingWith"() {
+        def output = new ByteArrayOutputStream()
+        def unpacked = new ByteArrayOutputStream()
+
+        when:
+        new CompressingBuildCacheEntryPacker(delegate, packedWith).pack(entity, [:], output, writeOrigin)
+
+        then:
+        1 * delegate.pack(entity, [:], _ as OutputStream, writeOrigin) >> { args ->
+            args[2].write(content)
+            new BuildCacheEntryPacker.PackResult(1)
+        }
+        output.size() < content.length
+
+        when:
+        new CompressingBuildCacheEntryPacker(delegate, packingWith).unpack(entity, new ByteArrayInputStream(output.toByteArray()), readOrigin)
+
+        then:
+        1 * delegate.unpack(entity, _ as InputStream, readOrigin) >> { args ->
+            unpacked << args[1]
+            new BuildCacheEntryPacker.UnpackResult(null, 1, [:])
+        }
+        unpacked.toByteArray() == content
+
+        where:
+        packedWith                      | packingWith
+        BuildCacheEntryCompression.GZIP | BuildCacheEntryCompression.GZIP
+        BuildCacheEntryCompression.GZIP | BuildCacheEntryCompression.LZ4
+        BuildCacheEntryCompression.LZ4  | BuildCacheEntryCompression.GZIP
+        BuildCacheEntryCompression.LZ4  | BuildCacheEntryCompression.LZ4
+    }
+
+    def "reports entries in an unknown format as invalid GZIP entries"() {
+        when:
+        new CompressingBuildCacheEntryPacker(delegate, BuildCacheEntryCompression.LZ4).unpack(entity, new ByteArrayInputStream("abc".bytes), readOrigin)
+
+        then:
+        thrown(ZipException)
+        0 * delegate._
+    }
+
+    def "selects compression from system property"() {
+        expect:
+        BuildCacheEntryCompression.fromSystemProperties() == BuildCacheEntryCompression.GZIP
+
+        when:
+        System.setProperty(BuildCacheEntryCompression.COMPRESSION_PROPERTY, "lz4")
+
+        then:
+        BuildCacheEntryCompression.fromSystemProperties() == BuildCacheEntryCompression.LZ4
+
+        when:
+        System.setProperty(BuildCacheEntryCompression.COMPRESSION_PROPERTY, "zip")
+        BuildCacheEntryCompression.fromSystemProperties()
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown build cache entry compression 'zip' set by org.gradle.unsafe.build-cache.compression, supported values are 'gzip' and 'lz4'."
+    }
+}
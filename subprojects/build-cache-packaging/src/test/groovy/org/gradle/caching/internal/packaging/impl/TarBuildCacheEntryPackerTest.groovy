@@ -22,6 +22,7 @@ import org.gradle.caching.internal.CacheableEntity
 import org.gradle.caching.internal.TestCacheableTree
 import org.gradle.caching.internal.origin.OriginReader
 import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.internal.file.FileException
 import org.gradle.internal.file.TreeType
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint
 import org.gradle.internal.fingerprint.FingerprintingStrategy
@@ -37,6 +38,10 @@ import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+
 import static org.gradle.internal.file.TreeType.DIRECTORY
 import static org.gradle.internal.file.TreeType.FILE
 
@@ -50,9 +55,14 @@ class TarBuildCacheEntryPackerTest extends Specification {
     def fileSystem = Mock(FileSystem)
     def streamHasher = new DefaultStreamHasher()
     def stringInterner = new StringInterner()
-    def packer = new TarBuildCacheEntryPacker(fileSystem, streamHasher, stringInterner)
+    def unpackExecutor = Executors.newFixedThreadPool(4)
+    def packer = new TarBuildCacheEntryPacker(fileSystem, streamHasher, stringInterner, unpackExecutor)
     def snapshotter = TestFiles.fileSystemSnapshotter()
 
+    def cleanup() {
+        unpackExecutor.shutdown()
+    }
+
     @Unroll
     def "can pack single file with file mode #mode"() {
         def sourceOutputFile = Spy(File, constructorArgs: [temporaryFolder.file("source.txt").absolutePath]) as File
@@ -319,6 +329,54 @@ class TarBuildCacheEntryPackerTest extends Specification {
         0 * _
     }
 
+    def "unpacked snapshot matches unpacked files when files are unpacked concurrently"() {
+        def sourceDir = temporaryFolder.file("source").createDir()
+        (1..300).each { sourceDir.file("dir${it % 7}/sub${it % 3}/file${it}.txt").text = "content ${it}" }
+        sourceDir.file("large.bin").bytes = new byte[3 * 1024 * 1024]
+        def targetDir = temporaryFolder.file("target")
+        def output = new ByteArrayOutputStream()
+        fileSystem.getUnixMode(_) >> 0644
+
+        when:
+        pack output, prop(DIRECTORY, sourceDir)
+        def result = unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetDir)
+
+        then:
+        def unpacked = result.snapshots["test"]
+        def expected = snapshotter.snapshot(targetDir)
+        unpacked.hash == expected.hash
+        unpacked.hash == snapshotter.snapshot(sourceDir).hash
+        result.entries == 1 + 1 + 7 + 21 + 300 + 1
+    }
+
+    def "waits for files being unpacked concurrently when unpacking fails"() {
+        def sourceDir = temporaryFolder.file("source").createDir()
+        sourceDir.file("a.txt").text = "small"
+        sourceDir.file("b.bin").bytes = new byte[2 * 1024 * 1024]
+        def targetDir = temporaryFolder.file("target")
+        def output = new ByteArrayOutputStream()
+        def smallFileStarted = new CountDownLatch(1)
+        def smallFileUnpacked = new AtomicBoolean()
+        fileSystem.getUnixMode(_) >> 0644
+        pack output, prop(DIRECTORY, sourceDir)
+
+        when:
+        unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetDir)
+
+        then:
+        1 * fileSystem.chmod({ it.name == "a.txt" }, _) >> {
+            smallFileStarted.countDown()
+            Thread.sleep(200)
+            smallFileUnpacked.set(true)
+        }
+        1 * fileSystem.chmod({ it.name == "b.bin" }, _) >> {
+            smallFileStarted.await()
+            throw new FileException("Failed to unpack", null)
+        }
+        thrown(FileException)
+        smallFileUnpacked.get()
+    }
+
     def pack(OutputStream output, OriginWriter writeOrigin = this.writeOrigin, TreeDefinition... treeDefs) {
         Map<String, CurrentFileCollectionFingerprint> fingerprints = treeDefs.collectEntries { treeDef ->
             return [(treeDef.tree.name): treeDef.fingerprint()]
@@ -20,6 +20,7 @@
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.OffHeapValueCodec;
 import org.gradle.internal.file.FileMetadataSnapshot;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
@@ -31,8 +32,13 @@
 import org.gradle.internal.serialize.InterningStringSerializer;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 
 public class CachingFileHasher implements FileHasher {
+    private static final int MAX_ENTRIES_IN_MEMORY = 400000;
+    // Off-heap entries are small, so many more of them can be kept. Takes up to 448 MiB of direct memory once full.
+    private static final int MAX_ENTRIES_OFF_HEAP = 4000000;
+
     private final PersistentIndexedCache<String, FileInfo> cache;
     private final FileHasher delegate;
     private final FileSystem fileSystem;
@@ -42,10 +48,12 @@ public class CachingFileHasher implements FileHasher {
     public CachingFileHasher(FileHasher delegate, CrossBuildFileHashCache store, StringInterner stringInterner, FileTimeStampInspector timestampInspector, String cacheName, FileSystem fileSystem) {
         this.delegate = delegate;
         this.fileSystem = fileSystem;
-        this.cache = store.createCache(
-            PersistentIndexedCacheParameters.of(cacheName, new InterningStringSerializer(stringInterner), new FileInfoSerializer()),
-            400000,
-            true);
+        PersistentIndexedCacheParameters<String, FileInfo> parameters = PersistentIndexedCacheParameters.of(cacheName, new InterningStringSerializer(stringInterner), new FileInfoSerializer());
+        if (CrossBuildFileHashCache.isOffHeapStoreEnabled()) {
+            this.cache = store.createOffHeapCache(parameters, new FileInfoCodec(), MAX_ENTRIES_OFF_HEAP);
+        } else {
+            this.cache = store.createCache(parameters, MAX_ENTRIES_IN_MEMORY, true);
+        }
         this.stringInterner = stringInterner;
         this.timestampInspector = timestampInspector;
     }
@@ -140,4 +148,53 @@ public int hashCode() {
             return Objects.hashCode(super.hashCode(), hashCodeSerializer);
         }
     }
+
+    /**
+     * Packs a {@link FileInfo} into a fixed size record: timestamp, length, hash length and up to {@value #MAX_HASH_LENGTH} bytes of hash.
+     */
+    @VisibleForTesting
+    static class FileInfoCodec implements OffHeapValueCodec<FileInfo> {
+        private static final int MAX_HASH_LENGTH = 16;
+
+        @Override
+        public int getValueSize() {
+            return 8 + 8 + 1 + MAX_HASH_LENGTH;
+        }
+
+        @Override
+        public boolean write(FileInfo value, ByteBuffer buffer, int offset) {
+            byte[] hash = value.hash.toByteArray();
+            if (hash.length > MAX_HASH_LENGTH) {
+                return false;
+            }
+            buffer.putLong(offset, value.timestamp);
+            buffer.putLong(offset + 8, value.length);
+            buffer.put(offset + 16, (byte) hash.length);
+            for (int i = 0; i < hash.length; i++) {
+                buffer.put(offset + 17 + i, hash[i]);
+            }
+            return true;
+        }
+
+        @Override
+        public FileInfo read(ByteBuffer buffer, int offset) {
+            long timestamp = buffer.getLong(offset);
+            long length = buffer.getLong(offset + 8);
+            byte[] hash = new byte[buffer.get(offset + 16)];
+            for (int i = 0; i < hash.length; i++) {
+                hash[i] = buffer.get(offset + 17 + i);
+            }
+            return new FileInfo(HashCode.fromBytes(hash), length, timestamp);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj != null && obj.getClass() == getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
 }
@@ -23,6 +23,7 @@
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.OffHeapValueCodec;
 
 import javax.annotation.Nullable;
 import java.io.Closeable;
@@ -32,6 +33,11 @@
 
 public class CrossBuildFileHashCache implements Closeable {
     public static final String FILE_HASHES_CACHE_KEY = "fileHashes";
+    /**
+     * When set, caches that support it keep their entries outside of the Java heap.
+     * The entries are kept in direct buffers, so {@code -XX:MaxDirectMemorySize} must leave room for them. Each file hash cache takes up to 448 MiB.
+     */
+    public static final String OFF_HEAP_PROPERTY = "org.gradle.unsafe.off-heap-file-hashes";
 
     private final PersistentCache cache;
     private final InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory;
@@ -51,6 +57,19 @@ public <K, V> PersistentIndexedCache<K, V> createCache(PersistentIndexedCachePar
         );
     }
 
+    /**
+     * Creates a cache that keeps its entries outside of the Java heap, packed using the given codec.
+     */
+    public <V> PersistentIndexedCache<String, V> createOffHeapCache(PersistentIndexedCacheParameters<String, V> parameters, OffHeapValueCodec<V> codec, int maxEntriesToKeepOffHeap) {
+        return cache.createCache(parameters
+                .withCacheDecorator(inMemoryCacheDecoratorFactory.offHeapDecorator(maxEntriesToKeepOffHeap, codec))
+        );
+    }
+
+    public static boolean isOffHeapStoreEnabled() {
+        return Boolean.getBoolean(OFF_HEAP_PROPERTY);
+    }
+
     @Override
     public void close() {
         cache.close();
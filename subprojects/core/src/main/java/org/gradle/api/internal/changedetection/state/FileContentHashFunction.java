@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.hash.HashFunction;
+import org.gradle.internal.hash.Hashing;
+
+/**
+ * The hash function used to fingerprint the contents of files.
+ *
+ * The file hashes calculated with each function are cached separately, so that switching between the functions never mixes up their hashes.
+ * As all file hashes change with the function, so do the build cache keys calculated from them.
+ */
+public enum FileContentHashFunction {
+    DEFAULT(Hashing.defaultFunction(), "fileHashes"),
+    /**
+     * A non-cryptographic hash function, only to be used when the inputs of the build are trusted.
+     */
+    FAST(Hashing.murmur3(), "fastFileHashes");
+
+    public static final String FAST_HASHING_PROPERTY = "org.gradle.unsafe.fast-file-hashing";
+
+    private final HashFunction hashFunction;
+    private final String fileHashesCacheName;
+
+    FileContentHashFunction(HashFunction hashFunction, String fileHashesCacheName) {
+        this.hashFunction = hashFunction;
+        this.fileHashesCacheName = fileHashesCacheName;
+    }
+
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
+
+    public String getFileHashesCacheName() {
+        return fileHashesCacheName;
+    }
+
+    public static FileContentHashFunction fromSystemProperties() {
+        return Boolean.getBoolean(FAST_HASHING_PROPERTY) ? FAST : DEFAULT;
+    }
+}
@@ -18,6 +18,7 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.gradle.api.execution.TaskActionListener;
@@ -35,6 +36,7 @@
 import org.gradle.api.internal.tasks.properties.CacheableOutputFilePropertySpec;
 import org.gradle.api.internal.tasks.properties.InputFilePropertySpec;
 import org.gradle.api.internal.tasks.properties.OutputFilePropertySpec;
+import org.gradle.api.internal.tasks.properties.TaskProperties;
 import org.gradle.api.tasks.StopActionException;
 import org.gradle.api.tasks.StopExecutionException;
 import org.gradle.api.tasks.TaskExecutionException;
@@ -326,7 +328,16 @@ public boolean shouldCleanupOutputsOnNonIncrementalExecution() {
 
         @Override
         public Optional<? extends Iterable<String>> getChangingOutputs() {
-            return Optional.empty();
+            TaskProperties taskProperties = context.getTaskProperties();
+            if (!taskProperties.hasDeclaredOutputs()) {
+                // Without declared outputs we cannot tell what the task actions are going to change
+                return Optional.empty();
+            }
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            for (File file : Iterables.concat(taskProperties.getOutputFiles(), taskProperties.getLocalStateFiles(), taskProperties.getDestroyableFiles())) {
+                builder.add(file.getAbsolutePath());
+            }
+            return Optional.of(builder.build());
         }
 
         @Override
@@ -16,11 +16,14 @@
 
 package org.gradle.cache.internal;
 
+import com.google.common.cache.Weigher;
 import org.gradle.api.Transformer;
 import org.gradle.initialization.SessionLifecycleListener;
 import org.gradle.internal.Factory;
 import org.gradle.internal.classloader.VisitableURLClassLoader;
 import org.gradle.internal.event.ListenerManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -28,6 +31,8 @@
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
@@ -42,6 +47,7 @@
  */
 @ThreadSafe
 public class DefaultCrossBuildInMemoryCacheFactory implements CrossBuildInMemoryCacheFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCrossBuildInMemoryCacheFactory.class);
     private final ListenerManager listenerManager;
 
     public DefaultCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
@@ -55,6 +61,13 @@ public <K, V> CrossBuildInMemoryCache<K, V> newCache() {
         return cache;
     }
 
+    @Override
+    public <K, V> CrossBuildInMemoryCache<K, V> newBoundedCache(String displayName, Weigher<? super K, ? super V> weigher, long maxWeight) {
+        WeightBoundedCrossBuildInMemoryCache<K, V> cache = new WeightBoundedCrossBuildInMemoryCache<>(displayName, weigher, maxWeight);
+        listenerManager.addListener(cache);
+        return cache;
+    }
+
     @Override
     public <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache() {
         // Should use some variation of DefaultClassMap below to associate values with classes, as currently we retain a strong reference to each value for one session after the ClassLoader
@@ -72,8 +85,8 @@ public <V> CrossBuildInMemoryCache<Class<?>, V> newClassMap() {
     }
 
     private abstract static class AbstractCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, SessionLifecycleListener {
-        private final Object lock = new Object();
-        private final Map<K, V> valuesForThisSession = new HashMap<K, V>();
+        protected final Object lock = new Object();
+        protected final Map<K, V> valuesForThisSession = new HashMap<K, V>();
 
         @Override
         public void afterStart() {
@@ -141,7 +154,8 @@ public void put(K key, V value) {
         }
 
         // Caller must be holding lock
-        private V getIfPresent(K key) {
+        @Nullable
+        protected V getIfPresent(K key) {
             V v = valuesForThisSession.get(key);
             if (v != null) {
                 return v;
@@ -196,6 +210,139 @@ protected V maybeGetRetainedValue(K key) {
         }
     }
 
+    /**
+     * Like {@link DefaultCrossBuildInMemoryCache}, but also discards values when their total weight exceeds a maximum.
+     *
+     * Uses two segments: values not used in the current session are discarded first, least recently used first, and values used in the current session only after that.
+     */
+    private static class WeightBoundedCrossBuildInMemoryCache<K, V> extends AbstractCrossBuildInMemoryCache<K, V> {
+        private final String displayName;
+        private final Weigher<? super K, ? super V> weigher;
+        private final long maxWeight;
+        // This is used only to retain strong references to the values
+        private final Set<V> valuesForPreviousSession = new HashSet<V>();
+        // In least recently used order
+        private final Map<K, WeightedValue<V>> allValues = new LinkedHashMap<>(16, 0.75f, true);
+        private long totalWeight;
+        // Counted for the current session only
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+
+        WeightBoundedCrossBuildInMemoryCache(String displayName, Weigher<? super K, ? super V> weigher, long maxWeight) {
+            this.displayName = displayName;
+            this.weigher = weigher;
+            this.maxWeight = maxWeight;
+        }
+
+        @Override
+        public void beforeComplete() {
+            long hits;
+            long misses;
+            long evictions;
+            long weight;
+            synchronized (lock) {
+                super.beforeComplete();
+                hits = hitCount;
+                misses = missCount;
+                evictions = evictionCount;
+                weight = totalWeight;
+                hitCount = 0;
+                missCount = 0;
+                evictionCount = 0;
+            }
+            LOGGER.debug("In-memory cache {}: {} hits, {} misses, {} evictions, weight {} of {}.", displayName, hits, misses, evictions, weight, maxWeight);
+        }
+
+        @Nullable
+        @Override
+        protected V getIfPresent(K key) {
+            V v = super.getIfPresent(key);
+            if (v != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            return v;
+        }
+
+        @Override
+        protected void retainValuesFromCurrentSession(Collection<V> values) {
+            // Retain strong references to the values created for this session
+            valuesForPreviousSession.clear();
+            valuesForPreviousSession.addAll(values);
+        }
+
+        @Override
+        protected void discardRetainedValues() {
+            valuesForPreviousSession.clear();
+            allValues.clear();
+            totalWeight = 0;
+        }
+
+        @Override
+        protected void retainValue(K key, V v) {
+            WeightedValue<V> previous = allValues.remove(key);
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            int weight = weigher.weigh(key, v);
+            allValues.put(key, new WeightedValue<V>(v, weight));
+            totalWeight += weight;
+            if (totalWeight > maxWeight) {
+                evict(key, false);
+                evict(key, true);
+            }
+        }
+
+        @Nullable
+        @Override
+        protected V maybeGetRetainedValue(K key) {
+            WeightedValue<V> weightedValue = allValues.get(key);
+            if (weightedValue == null) {
+                return null;
+            }
+            V value = weightedValue.reference.get();
+            if (value == null) {
+                allValues.remove(key);
+                totalWeight -= weightedValue.weight;
+            }
+            return value;
+        }
+
+        private void evict(K keep, boolean includeCurrentSession) {
+            Iterator<Map.Entry<K, WeightedValue<V>>> iterator = allValues.entrySet().iterator();
+            while (totalWeight > maxWeight && iterator.hasNext()) {
+                Map.Entry<K, WeightedValue<V>> entry = iterator.next();
+                K key = entry.getKey();
+                if (key.equals(keep)) {
+                    continue;
+                }
+                V value = entry.getValue().reference.get();
+                if (value != null && !includeCurrentSession && valuesForThisSession.containsKey(key)) {
+                    continue;
+                }
+                iterator.remove();
+                totalWeight -= entry.getValue().weight;
+                if (value != null) {
+                    evictionCount++;
+                    valuesForThisSession.remove(key);
+                    valuesForPreviousSession.remove(value);
+                }
+            }
+        }
+    }
+
+    private static class WeightedValue<V> {
+        private final SoftReference<V> reference;
+        private final int weight;
+
+        WeightedValue(V value, int weight) {
+            this.reference = new SoftReference<V>(value);
+            this.weight = weight;
+        }
+    }
+
     /**
      * Retains strong references to the keys and values via the key's ClassLoader. This allows the ClassLoader to be collected.
      */
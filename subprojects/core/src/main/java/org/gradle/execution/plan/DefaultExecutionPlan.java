@@ -74,13 +74,16 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Consumer;
 
 /**
@@ -90,7 +93,19 @@
 public class DefaultExecutionPlan implements ExecutionPlan {
     private final Set<TaskNode> entryTasks = new LinkedHashSet<TaskNode>();
     private final NodeMapping nodeMapping = new NodeMapping();
-    private final List<Node> executionQueue = Lists.newLinkedList();
+    private final Set<Node> executionQueue = Sets.newLinkedHashSet();
+    // The position of each node in the execution plan
+    private final Map<Node, Integer> executionOrder = Maps.newIdentityHashMap();
+    // The estimated execution time of the longest chain of nodes starting with each node, when scheduling by critical path
+    private final Map<Node, Long> criticalPathTimes = Maps.newIdentityHashMap();
+    // The queued nodes that are ready and whose dependencies are all complete, in the order they should be started
+    private final NavigableSet<Node> readyNodes = new TreeSet<Node>(
+        Comparator.<Node>comparingLong(node -> -criticalPathTimes.getOrDefault(node, 0L)).thenComparing(executionOrder::get)
+    );
+    // The queued nodes that wait for tasks in other builds. The completion of those tasks is not reported to this plan, so these nodes are checked again on each selection
+    private final Set<Node> nodesWaitingForOtherBuilds = Sets.newLinkedHashSet();
+    // For each node, the nodes which cannot start before it is complete
+    private final Map<Node, List<Node>> waitingNodes = Maps.newIdentityHashMap();
     private final Map<Project, ResourceLock> projectLocks = Maps.newHashMap();
     private final FailureCollector failureCollector = new FailureCollector();
     private final TaskNodeFactory taskNodeFactory;
@@ -100,21 +115,31 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     private boolean continueOnFailure;
 
     private final Set<Node> runningNodes = Sets.newIdentityHashSet();
+    // The number of running nodes which mutate each location
+    private final MutationPathIndex runningMutationPaths = new MutationPathIndex();
     private final Set<Node> filteredNodes = Sets.newIdentityHashSet();
     private final Map<Node, MutationInfo> mutations = Maps.newIdentityHashMap();
     private final Map<File, String> canonicalizedFileCache = Maps.newIdentityHashMap();
     private final Map<Pair<Node, Node>, Boolean> reachableCache = Maps.newHashMap();
-    private final Set<Node> dependenciesCompleteCache = Sets.newHashSet();
     private final WorkerLeaseService workerLeaseService;
     private final GradleInternal gradle;
+    private final NodeExecutionTimeEstimator executionTimeEstimator;
 
     private boolean buildCancelled;
 
     public DefaultExecutionPlan(WorkerLeaseService workerLeaseService, GradleInternal gradle, TaskNodeFactory taskNodeFactory, TaskDependencyResolver dependencyResolver) {
+        this(workerLeaseService, gradle, taskNodeFactory, dependencyResolver, null);
+    }
+
+    /**
+     * @param executionTimeEstimator when present, the ready nodes with the longest estimated chain of work waiting for them are started first. Otherwise nodes are started in plan order.
+     */
+    public DefaultExecutionPlan(WorkerLeaseService workerLeaseService, GradleInternal gradle, TaskNodeFactory taskNodeFactory, TaskDependencyResolver dependencyResolver, @Nullable NodeExecutionTimeEstimator executionTimeEstimator) {
         this.workerLeaseService = workerLeaseService;
         this.gradle = gradle;
         this.taskNodeFactory = taskNodeFactory;
         this.dependencyResolver = dependencyResolver;
+        this.executionTimeEstimator = executionTimeEstimator;
     }
 
     @Override
@@ -337,6 +362,78 @@ public NodeInVisitingSegment apply(TaskNode taskNode) {
         }
         executionQueue.clear();
         Iterables.addAll(executionQueue, nodeMapping);
+        initializeReadyNodes();
+    }
+
+    private void initializeReadyNodes() {
+        executionOrder.clear();
+        waitingNodes.clear();
+        readyNodes.clear();
+        nodesWaitingForOtherBuilds.clear();
+        criticalPathTimes.clear();
+        for (Node node : executionQueue) {
+            executionOrder.put(node, executionOrder.size());
+            for (Node successor : node.getAllSuccessors()) {
+                waitingNodes.computeIfAbsent(successor, key -> new ArrayList<Node>()).add(node);
+            }
+        }
+        if (executionTimeEstimator != null) {
+            calculateCriticalPathTimes(executionTimeEstimator);
+        }
+        for (Node node : executionQueue) {
+            addToReadyNodesIfReady(node);
+        }
+    }
+
+    private void calculateCriticalPathTimes(NodeExecutionTimeEstimator executionTimeEstimator) {
+        // Nodes only wait for nodes earlier in the plan, so walking the plan backwards visits the waiting nodes first
+        List<Node> nodes = new ArrayList<Node>(executionQueue);
+        for (Node node : Lists.reverse(nodes)) {
+            long longestWaitingPathTime = 0;
+            List<Node> nodesWaitingForNode = waitingNodes.get(node);
+            if (nodesWaitingForNode != null) {
+                for (Node waitingNode : nodesWaitingForNode) {
+                    longestWaitingPathTime = Math.max(longestWaitingPathTime, criticalPathTimes.getOrDefault(waitingNode, 0L));
+                }
+            }
+            criticalPathTimes.put(node, executionTimeEstimator.estimateExecutionTime(node) + longestWaitingPathTime);
+        }
+    }
+
+    private void addToReadyNodesIfReady(Node node) {
+        if (node.isReady() && executionQueue.contains(node)) {
+            if (node.allDependenciesComplete()) {
+                nodesWaitingForOtherBuilds.remove(node);
+                readyNodes.add(node);
+            } else if (waitsForTaskInAnotherBuild(node)) {
+                nodesWaitingForOtherBuilds.add(node);
+            }
+        }
+    }
+
+    private static boolean waitsForTaskInAnotherBuild(Node node) {
+        for (Node dependency : node.getDependencySuccessors()) {
+            if (dependency instanceof TaskNodeFactory.TaskInAnotherBuild && !dependency.isComplete()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkNodesWaitingForOtherBuilds() {
+        Iterator<Node> iterator = nodesWaitingForOtherBuilds.iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            if (!node.isReady() || !executionQueue.contains(node)) {
+                iterator.remove();
+            } else if (node.allDependenciesComplete()) {
+                iterator.remove();
+                readyNodes.add(node);
+            } else if (!waitsForTaskInAnotherBuild(node)) {
+                // Now only waits for nodes of this plan, and is added to the ready nodes when they complete
+                iterator.remove();
+            }
+        }
     }
 
     private MutationInfo getOrCreateMutationsOf(Node node) {
@@ -502,13 +599,18 @@ public void clear() {
         entryTasks.clear();
         nodeMapping.clear();
         executionQueue.clear();
+        executionOrder.clear();
+        readyNodes.clear();
+        nodesWaitingForOtherBuilds.clear();
+        waitingNodes.clear();
+        criticalPathTimes.clear();
         projectLocks.clear();
         failureCollector.clearFailures();
         mutations.clear();
         canonicalizedFileCache.clear();
         reachableCache.clear();
-        dependenciesCompleteCache.clear();
         runningNodes.clear();
+        runningMutationPaths.clear();
     }
 
     @Override
@@ -542,30 +644,38 @@ public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLock
             return null;
         }
 
-        Iterator<Node> iterator = executionQueue.iterator();
+        if (!nodesWaitingForOtherBuilds.isEmpty()) {
+            checkNodesWaitingForOtherBuilds();
+        }
+
+        Iterator<Node> iterator = readyNodes.iterator();
         while (iterator.hasNext()) {
             Node node = iterator.next();
-            if (node.isReady() && allDependenciesComplete(node)) {
-                MutationInfo mutations = getResolvedMutationInfo(node);
-
-                // TODO: convert output file checks to a resource lock
-                if (!tryLockProjectFor(node)
-                    || !workerLease.tryLock()
-                    || !canRunWithCurrentlyExecutedNodes(node, mutations)) {
-                    resourceLockState.releaseLocks();
-                    continue;
-                }
-
-                if (node.allDependenciesSuccessful()) {
-                    recordNodeStarted(node);
-                    node.startExecution();
-                } else {
-                    node.skipExecution();
-                }
+            if (!node.isReady()) {
+                // The node has been skipped in the meantime, or only becomes ready again when enforced by a finalizer
                 iterator.remove();
+                continue;
+            }
+            MutationInfo mutations = getResolvedMutationInfo(node);
+
+            // TODO: convert output file checks to a resource lock
+            if (!tryLockProjectFor(node)
+                || !workerLease.tryLock()
+                || !canRunWithCurrentlyExecutedNodes(node, mutations)) {
+                resourceLockState.releaseLocks();
+                continue;
+            }
 
-                return node;
+            if (node.allDependenciesSuccessful()) {
+                recordNodeStarted(node);
+                node.startExecution();
+            } else {
+                node.skipExecution();
             }
+            iterator.remove();
+            executionQueue.remove(node);
+
+            return node;
         }
         return null;
     }
@@ -682,19 +792,6 @@ private void withDeadlockHandling(TaskNode task, String singular, String descrip
         }
     }
 
-    private boolean allDependenciesComplete(Node node) {
-        if (dependenciesCompleteCache.contains(node)) {
-            return true;
-        }
-
-        boolean dependenciesComplete = node.allDependenciesComplete();
-        if (dependenciesComplete) {
-            dependenciesCompleteCache.add(node);
-        }
-
-        return dependenciesComplete;
-    }
-
     private boolean allProjectsLocked() {
         for (ResourceLock lock : projectLocks.values()) {
             if (!lock.isLocked()) {
@@ -746,13 +843,9 @@ private static String canonicalizePath(File file, Map<File, String> cache) {
     }
 
     private boolean hasNodeWithOverlappingMutations(Set<String> candidateMutationPaths) {
-        if (!candidateMutationPaths.isEmpty()) {
-            for (Node runningNode : runningNodes) {
-                MutationInfo runningMutations = mutations.get(runningNode);
-                Iterable<String> runningMutationPaths = Iterables.concat(runningMutations.outputPaths, runningMutations.destroyablePaths);
-                if (hasOverlap(candidateMutationPaths, runningMutationPaths)) {
-                    return true;
-                }
+        for (String candidateMutationPath : candidateMutationPaths) {
+            if (runningMutationPaths.overlaps(candidateMutationPath)) {
+                return true;
             }
         }
         return false;
@@ -850,11 +943,18 @@ private static String getOverLappedPath(String firstPath, String secondPath) {
 
     private void recordNodeStarted(Node node) {
         runningNodes.add(node);
+        MutationInfo mutations = this.mutations.get(node);
+        for (String path : Iterables.concat(mutations.outputPaths, mutations.destroyablePaths)) {
+            runningMutationPaths.add(path);
+        }
     }
 
     private void recordNodeCompleted(Node node) {
         runningNodes.remove(node);
         MutationInfo mutations = this.mutations.get(node);
+        for (String path : Iterables.concat(mutations.outputPaths, mutations.destroyablePaths)) {
+            runningMutationPaths.remove(path);
+        }
         for (Node producer : mutations.producingNodes) {
             MutationInfo producerMutations = this.mutations.get(producer);
             if (producerMutations.consumingNodes.remove(node) && canRemoveMutation(producerMutations)) {
@@ -883,15 +983,26 @@ public void nodeComplete(Node node) {
                 node.finishExecution();
                 recordNodeCompleted(node);
             }
+            List<Node> nodesWaitingForCompletedNode = waitingNodes.remove(node);
+            if (nodesWaitingForCompletedNode != null) {
+                for (Node waitingNode : nodesWaitingForCompletedNode) {
+                    addToReadyNodesIfReady(waitingNode);
+                }
+            }
         } finally {
             unlockProjectFor(node);
         }
     }
 
-    private static void enforceFinalizers(Node node) {
+    private void enforceFinalizers(Node node) {
         for (Node finalizerNode : node.getFinalizers()) {
             if (finalizerNode.isRequired() || finalizerNode.isMustNotRun()) {
-                enforceWithDependencies(finalizerNode, Sets.<Node>newHashSet());
+                Set<Node> enforcedNodes = Sets.newHashSet();
+                enforceWithDependencies(finalizerNode, enforcedNodes);
+                // Nodes that must not run become ready once enforced
+                for (Node enforcedNode : enforcedNodes) {
+                    addToReadyNodesIfReady(enforcedNode);
+                }
             }
         }
     }
@@ -966,6 +1077,12 @@ private boolean abortExecution(boolean abortAll) {
                 aborted = true;
             }
         }
+        if (aborted) {
+            // Skipped nodes are complete, so the nodes waiting for them may be ready now
+            for (Node node : executionQueue) {
+                addToReadyNodesIfReady(node);
+            }
+        }
         return aborted;
     }
 
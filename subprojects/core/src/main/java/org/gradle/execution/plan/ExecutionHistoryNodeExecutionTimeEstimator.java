@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.execution.history.ExecutionHistoryStore;
+
+/**
+ * Estimates the execution time of tasks by the time their last execution took, as recorded in the execution history.
+ *
+ * Nodes without a recorded execution are estimated to take one millisecond, so that in the absence of any history
+ * the longest chain is the one with the most nodes.
+ */
+public class ExecutionHistoryNodeExecutionTimeEstimator implements NodeExecutionTimeEstimator {
+    private static final long UNKNOWN_EXECUTION_TIME = 1;
+
+    private final ExecutionHistoryStore executionHistoryStore;
+
+    public ExecutionHistoryNodeExecutionTimeEstimator(ExecutionHistoryStore executionHistoryStore) {
+        this.executionHistoryStore = executionHistoryStore;
+    }
+
+    @Override
+    public long estimateExecutionTime(Node node) {
+        if (!(node instanceof LocalTaskNode)) {
+            return UNKNOWN_EXECUTION_TIME;
+        }
+        return executionHistoryStore.loadExecutionTime(((LocalTaskNode) node).getTask().getPath())
+            .map(executionTime -> Math.max(executionTime, UNKNOWN_EXECUTION_TIME))
+            .orElse(UNKNOWN_EXECUTION_TIME);
+    }
+}
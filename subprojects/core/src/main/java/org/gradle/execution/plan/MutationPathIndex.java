@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import java.io.File;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Counts how many running nodes mutate each location, and finds whether any of these locations overlaps a given location.
+ *
+ * Two locations overlap when they are the same, or when one of them is below the other.
+ * The locations are kept sorted, so that all the locations below some location form a contiguous range.
+ */
+class MutationPathIndex {
+    private final char separatorChar;
+    private final NavigableMap<String, Integer> counts = new TreeMap<>();
+
+    MutationPathIndex() {
+        this(File.separatorChar);
+    }
+
+    MutationPathIndex(char separatorChar) {
+        this.separatorChar = separatorChar;
+    }
+
+    void add(String path) {
+        counts.merge(path, 1, Integer::sum);
+    }
+
+    void remove(String path) {
+        counts.computeIfPresent(path, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    boolean overlaps(String path) {
+        if (counts.isEmpty()) {
+            return false;
+        }
+        if (counts.containsKey(path)) {
+            return true;
+        }
+        // Locations above the path
+        for (int index = path.indexOf(separatorChar); index >= 0; index = path.indexOf(separatorChar, index + 1)) {
+            if (counts.containsKey(path.substring(0, index))) {
+                return true;
+            }
+        }
+        // Locations below the path all start with the path followed by a separator, and sort right after it
+        String prefix = path + separatorChar;
+        String next = counts.ceilingKey(prefix);
+        return next != null && next.startsWith(prefix);
+    }
+
+    void clear() {
+        counts.clear();
+    }
+}
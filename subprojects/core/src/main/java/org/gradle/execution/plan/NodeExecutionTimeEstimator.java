@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+/**
+ * Estimates how long nodes take to execute, so that the nodes on the longest chain of work can be started first.
+ */
+public interface NodeExecutionTimeEstimator {
+    /**
+     * When set to {@code true}, ready nodes are scheduled by the estimated execution time of the longest chain of nodes waiting for them, instead of in plan order.
+     */
+    String CRITICAL_PATH_SCHEDULING_PROPERTY = "org.gradle.unsafe.critical-path-scheduling";
+
+    /**
+     * Returns the estimated execution time of the given node in milliseconds. Must be positive.
+     */
+    long estimateExecutionTime(Node node);
+}
@@ -67,7 +67,7 @@ public void clear() {
         nodes.clear();
     }
 
-    private static class TaskInAnotherBuild extends TaskNode {
+    static class TaskInAnotherBuild extends TaskNode {
         private final BuildIdentifier thisBuild;
         private final IncludedBuildTaskGraph taskGraph;
         private final BuildIdentifier targetBuild;
@@ -15,6 +15,7 @@
  */
 package org.gradle.groovy.scripts.internal;
 
+import com.google.common.cache.Weigher;
 import groovy.lang.Script;
 import org.codehaus.groovy.ast.ClassNode;
 import org.gradle.api.Action;
@@ -26,10 +27,25 @@
 import org.gradle.internal.hash.HashCode;
 
 public class CrossBuildInMemoryCachingScriptClassCache {
+    /**
+     * The maximum number of compiled scripts to keep in memory across builds. When not set, scripts are discarded only based on memory pressure.
+     */
+    public static final String MAX_ENTRIES_PROPERTY = "org.gradle.unsafe.script-class-cache.max-entries";
+
     private final CrossBuildInMemoryCache<ScriptCacheKey, CachedCompiledScript> cachedCompiledScripts;
 
     public CrossBuildInMemoryCachingScriptClassCache(CrossBuildInMemoryCacheFactory cacheFactory) {
-        cachedCompiledScripts = cacheFactory.newCache();
+        Integer maxEntries = Integer.getInteger(MAX_ENTRIES_PROPERTY);
+        if (maxEntries != null) {
+            cachedCompiledScripts = cacheFactory.newBoundedCache("compiled scripts", new Weigher<ScriptCacheKey, CachedCompiledScript>() {
+                @Override
+                public int weigh(ScriptCacheKey key, CachedCompiledScript value) {
+                    return 1;
+                }
+            }, maxEntries);
+        } else {
+            cachedCompiledScripts = cacheFactory.newCache();
+        }
     }
 
     public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource source, ClassLoader classLoader,
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.file;
+
+import org.gradle.concurrent.ParallelismConfiguration;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.ParallelismConfigurationListener;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs file system work, such as walking directories and unpacking build cache entries, on a pool of at most max-workers threads.
+ */
+public class FileSystemWorkerPool implements Executor, ParallelismConfigurationListener, Stoppable {
+    private final ManagedExecutor executor;
+    private final ParallelismConfigurationManager parallelismConfigurationManager;
+
+    public FileSystemWorkerPool(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+        this.executor = executorFactory.create("File system worker", parallelismConfigurationManager.getParallelismConfiguration().getMaxWorkerCount());
+        this.parallelismConfigurationManager = parallelismConfigurationManager;
+        parallelismConfigurationManager.addListener(this);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public void onParallelismConfigurationChange(ParallelismConfiguration parallelismConfiguration) {
+        executor.setFixedPoolSize(parallelismConfiguration.getMaxWorkerCount());
+    }
+
+    @Override
+    public void stop() {
+        parallelismConfigurationManager.removeListener(this);
+        executor.stop();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.file.FileMetadataSnapshot;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemMirror;
+import org.gradle.internal.snapshot.impl.DefaultFileSystemMirror;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link FileSystemMirror} that can retain its state between builds in the same daemon.
+ *
+ * The roots of the snapshots taken during a build are watched for changes once the build has finished.
+ * Only the state for locations that were already watched when they were snapshotted survives the end of a build,
+ * and this state is discarded as soon as a change is reported for it.
+ * A deleted root is no longer watched, so it is watched again once it has been snapshotted again.
+ */
+public class WatchingFileSystemMirror implements FileSystemMirror, FileWatcherListener, Stoppable {
+    public static final String RETENTION_ENABLED_PROPERTY = "org.gradle.unsafe.vfs.retention";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchingFileSystemMirror.class);
+
+    private final DefaultFileSystemMirror delegate;
+    private final FileWatcherFactory fileWatcherFactory;
+    private final Set<String> watchedRoots = ConcurrentHashMap.newKeySet();
+    private final Set<String> unwatchedRoots = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    private FileWatcher watcher;
+    private volatile boolean retentionEnabled;
+
+    public WatchingFileSystemMirror(DefaultFileSystemMirror delegate, FileWatcherFactory fileWatcherFactory) {
+        this.delegate = delegate;
+        this.fileWatcherFactory = fileWatcherFactory;
+    }
+
+    @Nullable
+    @Override
+    public FileSystemLocationSnapshot getSnapshot(String absolutePath) {
+        return delegate.getSnapshot(absolutePath);
+    }
+
+    @Override
+    public void putSnapshot(FileSystemLocationSnapshot snapshot) {
+        delegate.putSnapshot(snapshot);
+        // Missing files are not watched, as there is nothing to attach a watch to
+        if (retentionEnabled && snapshot.getType() != FileType.Missing && !isWatched(snapshot.getAbsolutePath())) {
+            unwatchedRoots.add(snapshot.getAbsolutePath());
+        }
+    }
+
+    @Nullable
+    @Override
+    public FileMetadataSnapshot getMetadata(String absolutePath) {
+        return delegate.getMetadata(absolutePath);
+    }
+
+    @Override
+    public void putMetadata(String absolutePath, FileMetadataSnapshot stat) {
+        delegate.putMetadata(absolutePath, stat);
+    }
+
+    public void beforeOutputChange() {
+        delegate.beforeOutputChange();
+    }
+
+    public void beforeOutputChange(Iterable<String> affectedOutputPaths) {
+        delegate.beforeOutputChange(affectedOutputPaths);
+    }
+
+    public void afterBuildStarted() {
+        retentionEnabled = Boolean.getBoolean(RETENTION_ENABLED_PROPERTY);
+        if (!retentionEnabled) {
+            stopWatching();
+        }
+    }
+
+    public void beforeBuildFinished() {
+        synchronized (lock) {
+            if (!retentionEnabled) {
+                delegate.beforeBuildFinished();
+                return;
+            }
+            // Retain only the state that was captured while its location was being watched
+            delegate.beforeBuildFinished(this::isWatched);
+            List<String> newRoots = new ArrayList<>(unwatchedRoots);
+            unwatchedRoots.clear();
+            try {
+                watch(newRoots);
+            } catch (IOException e) {
+                LOGGER.warn("Could not watch the file system for changes, file system state will not be retained between builds.", e);
+                stopWatching();
+            }
+        }
+    }
+
+    private void watch(List<String> roots) throws IOException {
+        if (roots.isEmpty()) {
+            return;
+        }
+        if (watcher == null) {
+            watcher = fileWatcherFactory.watch(this::watchingFailed, this);
+        }
+        FileSystemSubset.Builder fileSystemSubset = FileSystemSubset.builder();
+        for (String root : roots) {
+            fileSystemSubset.add(new File(root));
+        }
+        watcher.watch(fileSystemSubset.build());
+        watchedRoots.addAll(roots);
+    }
+
+    @Override
+    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+        File file = event.getFile();
+        if (event.getType() == FileWatcherEvent.Type.UNDEFINED || file == null) {
+            // Events have been lost, so nothing can be trusted anymore
+            delegate.beforeBuildFinished();
+        } else {
+            String absolutePath = file.getAbsolutePath();
+            if (event.getType() == FileWatcherEvent.Type.DELETE) {
+                // The watches for a deleted directory are gone, and are not restored when the directory is created again
+                watchedRoots.removeIf(root -> isSameOrDescendant(root, absolutePath));
+            }
+            delegate.changed(ImmutableList.of(absolutePath));
+        }
+    }
+
+    private void watchingFailed(Throwable failure) {
+        LOGGER.warn("Watching the file system for changes failed, file system state will not be retained between builds.", failure);
+        stopWatching();
+    }
+
+    private void stopWatching() {
+        synchronized (lock) {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+            }
+            watchedRoots.clear();
+            unwatchedRoots.clear();
+            delegate.beforeBuildFinished();
+        }
+    }
+
+    private boolean isWatched(String absolutePath) {
+        String path = absolutePath;
+        while (true) {
+            if (watchedRoots.contains(path)) {
+                return true;
+            }
+            int separator = path.lastIndexOf(File.separatorChar);
+            if (separator <= 0) {
+                return false;
+            }
+            path = path.substring(0, separator);
+        }
+    }
+
+    private static boolean isSameOrDescendant(String path, String ancestor) {
+        return path.startsWith(ancestor) && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == File.separatorChar);
+    }
+
+    @Override
+    public void stop() {
+        stopWatching();
+    }
+}
@@ -66,11 +66,16 @@ public FileWatcherEvent transform(WatchEvent<?> event) {
         };
 
         List<WatchEvent<?>> watchEvents = watchKey.pollEvents();
-        watchKey.reset();
+        boolean valid = watchKey.reset();
         if (watchEvents.isEmpty()) {
             return Collections.singletonList(FileWatcherEvent.delete(watchedPath.toFile()));
         } else {
-            return CollectionUtils.collect(watchEvents, watchEventTransformer);
+            List<FileWatcherEvent> events = CollectionUtils.collect(watchEvents, watchEventTransformer);
+            if (!valid) {
+                // The watched directory went away after these events, e.g. because it was deleted with its contents
+                events.add(FileWatcherEvent.delete(watchedPath.toFile()));
+            }
+            return events;
         }
     }
 
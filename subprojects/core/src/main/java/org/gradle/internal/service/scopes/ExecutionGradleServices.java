@@ -26,6 +26,7 @@
 import org.gradle.caching.internal.command.BuildCacheCommandFactory;
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.execution.plan.DefaultPlanExecutor;
+import org.gradle.execution.plan.NodeExecutionTimeEstimator;
 import org.gradle.execution.plan.PlanExecutor;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -83,7 +84,9 @@ ExecutionHistoryCacheAccess createCacheAccess(Gradle gradle, CacheRepository cac
     }
 
     ExecutionHistoryStore createExecutionHistoryStore(ExecutionHistoryCacheAccess executionHistoryCacheAccess, StringInterner stringInterner) {
-        return new DefaultExecutionHistoryStore(executionHistoryCacheAccess, stringInterner);
+        // Execution times are only read when scheduling by critical path
+        boolean recordExecutionTimes = Boolean.getBoolean(NodeExecutionTimeEstimator.CRITICAL_PATH_SCHEDULING_PROPERTY);
+        return new DefaultExecutionHistoryStore(executionHistoryCacheAccess, stringInterner, recordExecutionTimes);
     }
 
     OutputFilesRepository createOutputFilesRepository(CacheRepository cacheRepository, Gradle gradle, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
@@ -27,6 +27,7 @@
 import org.gradle.api.internal.MutationGuards;
 import org.gradle.api.internal.StartParameterInternal;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.FileContentHashFunction;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -301,8 +302,12 @@ LoggingManagerInternal createLoggingManager(Factory<LoggingManagerInternal> logg
         return loggingManagerFactory.create();
     }
 
-    StreamHasher createStreamHasher() {
-        return new DefaultStreamHasher();
+    FileContentHashFunction createFileContentHashFunction() {
+        return FileContentHashFunction.fromSystemProperties();
+    }
+
+    StreamHasher createStreamHasher(FileContentHashFunction fileContentHashFunction) {
+        return new DefaultStreamHasher(fileContentHashFunction.getHashFunction());
     }
 
     ExecutionStateChangeDetector createExecutionStateChangeDetector() {
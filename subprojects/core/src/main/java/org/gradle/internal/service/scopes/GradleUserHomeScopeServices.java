@@ -26,6 +26,7 @@
 import org.gradle.api.internal.changedetection.state.DefaultFileAccessTimeJournal;
 import org.gradle.api.internal.changedetection.state.DefaultResourceSnapshotterCacheService;
 import org.gradle.api.internal.changedetection.state.DefaultWellKnownFileLocations;
+import org.gradle.api.internal.changedetection.state.FileContentHashFunction;
 import org.gradle.api.internal.changedetection.state.GlobalScopeFileTimeStampInspector;
 import org.gradle.api.internal.changedetection.state.ResourceFilter;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
@@ -61,13 +62,17 @@
 import org.gradle.internal.classpath.CachedJarFileStore;
 import org.gradle.internal.classpath.DefaultCachedClasspathTransformer;
 import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.OutputChangeListener;
 import org.gradle.internal.execution.timeout.TimeoutHandler;
 import org.gradle.internal.execution.timeout.impl.DefaultTimeoutHandler;
 import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.file.FileSystemWorkerPool;
 import org.gradle.internal.file.JarCache;
 import org.gradle.internal.file.Stat;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.WatchingFileSystemMirror;
 import org.gradle.internal.fingerprint.FileCollectionSnapshotter;
 import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter;
 import org.gradle.internal.fingerprint.classpath.impl.DefaultClasspathFingerprinter;
@@ -92,6 +97,7 @@
 import org.gradle.internal.snapshot.impl.DefaultFileSystemMirror;
 import org.gradle.internal.snapshot.impl.DefaultFileSystemSnapshotter;
 import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
 import org.gradle.internal.state.ManagedFactoryRegistry;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
@@ -102,6 +108,7 @@
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Defines the shared services scoped to a particular Gradle user home directory. These services are reused across multiple builds and operations.
@@ -136,8 +143,8 @@ GlobalScopeFileTimeStampInspector createFileTimestampInspector(CacheScopeMapping
         return timeStampInspector;
     }
 
-    FileHasher createCachingFileHasher(StringInterner stringInterner, CrossBuildFileHashCache fileStore, FileSystem fileSystem, GlobalScopeFileTimeStampInspector fileTimeStampInspector, StreamHasher streamHasher) {
-        CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem);
+    FileHasher createCachingFileHasher(StringInterner stringInterner, CrossBuildFileHashCache fileStore, FileSystem fileSystem, GlobalScopeFileTimeStampInspector fileTimeStampInspector, StreamHasher streamHasher, FileContentHashFunction fileContentHashFunction) {
+        CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, fileContentHashFunction.getFileHashesCacheName(), fileSystem);
         fileTimeStampInspector.attach(fileHasher);
         return fileHasher;
     }
@@ -162,8 +169,12 @@ WellKnownFileLocations createFileCategorizer(List<CachedJarFileStore> fileStores
         return new DefaultWellKnownFileLocations(fileStores);
     }
 
-    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager, WellKnownFileLocations wellKnownFileLocations) {
-        final DefaultFileSystemMirror fileSystemMirror = new DefaultFileSystemMirror(wellKnownFileLocations);
+    FileSystemWorkerPool createFileSystemWorkerPool(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+        return new FileSystemWorkerPool(executorFactory, parallelismConfigurationManager);
+    }
+
+    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager, WellKnownFileLocations wellKnownFileLocations, FileWatcherFactory fileWatcherFactory) {
+        final WatchingFileSystemMirror fileSystemMirror = new WatchingFileSystemMirror(new DefaultFileSystemMirror(wellKnownFileLocations), fileWatcherFactory);
         listenerManager.addListener(new OutputChangeListener() {
             @Override
             public void beforeOutputChange() {
@@ -178,6 +189,7 @@ public void beforeOutputChange(Iterable<String> affectedOutputPaths) {
         listenerManager.addListener(new RootBuildLifecycleListener() {
             @Override
             public void afterStart() {
+                fileSystemMirror.afterBuildStarted();
             }
 
             @Override
@@ -188,8 +200,9 @@ public void beforeComplete() {
         return fileSystemMirror;
     }
 
-    FileSystemSnapshotter createFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, Stat stat, FileSystemMirror fileSystemMirror) {
-        return new DefaultFileSystemSnapshotter(hasher, stringInterner, stat, fileSystemMirror, DirectoryScanner.getDefaultExcludes());
+    FileSystemSnapshotter createFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, Stat stat, FileSystemMirror fileSystemMirror, FileSystemWorkerPool fileSystemWorkerPool) {
+        Executor directoryWalkExecutor = Boolean.getBoolean(DirectorySnapshotter.PARALLEL_SNAPSHOTTING_PROPERTY) ? fileSystemWorkerPool : null;
+        return new DefaultFileSystemSnapshotter(hasher, stringInterner, stat, fileSystemMirror, directoryWalkExecutor, DirectoryScanner.getDefaultExcludes());
     }
 
     FileCollectionSnapshotter createFileCollectionSnapshotter(FileSystemSnapshotter fileSystemSnapshotter, Stat stat) {
@@ -28,8 +28,8 @@
 import java.net.URL;
 import java.text.DateFormat;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class HtmlReportRenderer {
     /**
@@ -87,7 +87,8 @@ private Resource(URL source, String path) {
 
     private static class DefaultHtmlReportContext implements HtmlReportBuilder {
         private final File outputDirectory;
-        private final Map<String, Resource> resources = new HashMap<String, Resource>();
+        // Pages may be rendered concurrently
+        private final ConcurrentMap<String, Resource> resources = new ConcurrentHashMap<String, Resource>();
 
         public DefaultHtmlReportContext(File outputDirectory) {
             this.outputDirectory = outputDirectory;
@@ -103,8 +104,11 @@ Resource addResource(URL source) {
                     type = "images";
                 }
                 String path = type + "/" + name;
-                resource = new Resource(source, path);
-                resources.put(urlString, resource);
+                Resource newResource = new Resource(source, path);
+                resource = resources.putIfAbsent(urlString, newResource);
+                if (resource == null) {
+                    resource = newResource;
+                }
             }
             return resource;
         }
@@ -16,6 +16,7 @@
 
 package org.gradle.cache.internal
 
+import com.google.common.cache.Weigher
 import org.gradle.api.Transformer
 import org.gradle.initialization.SessionLifecycleListener
 import org.gradle.internal.event.DefaultListenerManager
@@ -147,6 +148,51 @@ class DefaultCrossBuildInMemoryCacheFactoryTest extends ConcurrentSpec {
         0 * transformer._
     }
 
+    def "bounded cache discards values not used in the current session first"() {
+        def weigher = { key, value -> value.length() } as Weigher
+
+        given:
+        def cache = factory.newBoundedCache("test", weigher, 10)
+        cache.put("a", "aaaa")
+        cache.put("b", "bbbb")
+        listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+
+        when:
+        cache.get("b")
+        cache.put("c", "cccc")
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == "bbbb"
+        cache.get("c") == "cccc"
+    }
+
+    def "bounded cache discards least recently used values of the current session when required"() {
+        def weigher = { key, value -> value.length() } as Weigher
+
+        given:
+        def cache = factory.newBoundedCache("test", weigher, 10)
+
+        when:
+        cache.put("a", "aaaa")
+        cache.put("b", "bbbb")
+        cache.put("c", "cccc")
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == "bbbb"
+        cache.get("c") == "cccc"
+
+        when:
+        cache.put("b", "b")
+        cache.put("d", "dddd")
+
+        then:
+        cache.get("b") == "b"
+        cache.get("c") == "cccc"
+        cache.get("d") == "dddd"
+    }
+
     def "creates a cache whose keys are classes"() {
         def a = new Object()
         def b = new Object()
@@ -211,6 +211,54 @@ class DefaultExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
 
     }
 
+    def "task becomes available for execution in plan order once its dependency completes"() {
+        given:
+        Task a = project.task("a", type: Async)
+        Task b = project.task("b", type: Async).dependsOn(a)
+        Task c = project.task("c", type: Async)
+        Task d = project.task("d", type: Async)
+
+        when:
+        addToGraphAndPopulate(b, c, d)
+
+        def aNode = selectNextTaskNode()
+        then:
+        aNode.task == a
+        selectNextTask() == c
+
+        when:
+        executionPlan.nodeComplete(aNode)
+        then:
+        selectNextTask() == b
+        selectNextTask() == d
+        selectNextTask() == null
+    }
+
+    def "starts the task with the longest chain of waiting tasks first when scheduling by critical path"() {
+        given:
+        def taskNodeFactory = new TaskNodeFactory(project.gradle, Stub(IncludedBuildTaskGraph))
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        def executionTimes = [leaf1: 2, leaf2: 100, x: 1, y: 1, z: 1]
+        executionPlan = new DefaultExecutionPlan(lockSetup.workerLeaseService, project.gradle, taskNodeFactory, dependencyResolver, { Node node ->
+            executionTimes[((LocalTaskNode) node).task.name] as long
+        } as NodeExecutionTimeEstimator)
+
+        Task leaf1 = project.task("leaf1", type: Async)
+        Task leaf2 = project.task("leaf2", type: Async)
+        Task x = project.task("x", type: Async)
+        Task y = project.task("y", type: Async).dependsOn(x)
+        Task z = project.task("z", type: Async).dependsOn(y)
+
+        when:
+        addToGraphAndPopulate(leaf1, leaf2, z)
+
+        then:
+        selectNextTask() == leaf2
+        selectNextTask() == x
+        selectNextTask() == leaf1
+        selectNextTask() == null
+    }
+
     def "two tasks that have the same file in outputs are not executed in parallel"() {
         def sharedFile = file("output")
 
@@ -267,6 +315,34 @@ class DefaultExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
         tasksAreNotExecutedInParallel(a, b)
     }
 
+    def "tasks that write into sibling directories with a common name prefix are executed in parallel"() {
+        given:
+        Task a = project.task("a", type: AsyncWithOutputDirectory) {
+            outputDirectory = file("outputDir")
+        }
+        Task b = project.task("b", type: AsyncWithOutputDirectory) {
+            outputDirectory = file("outputDir2")
+        }
+        Task c = project.task("c", type: AsyncWithOutputDirectory) {
+            outputDirectory = file("outputDir").file("nested")
+        }
+
+        when:
+        addToGraphAndPopulate(a, b, c)
+        def aNode = selectNextTaskNode()
+
+        then:
+        aNode.task == a
+        selectNextTask() == b
+        selectNextTask() == null
+
+        when:
+        executionPlan.nodeComplete(aNode)
+
+        then:
+        selectNextTask() == c
+    }
+
     @Requires(TestPrecondition.SYMLINKS)
     def "a task that writes into a symlink that overlaps with output of currently running task is not started"() {
         given:
@@ -20,6 +20,8 @@ import org.gradle.api.BuildCancelledException
 import org.gradle.api.CircularReferenceException
 import org.gradle.api.DefaultTask
 import org.gradle.api.Task
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.artifacts.DefaultBuildIdentifier
 import org.gradle.api.internal.TaskInputsInternal
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
@@ -32,8 +34,11 @@ import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.TaskDependency
 import org.gradle.api.tasks.TaskDestroyables
 import org.gradle.composite.internal.IncludedBuildTaskGraph
+import org.gradle.composite.internal.IncludedBuildTaskResource
+import org.gradle.internal.build.BuildState
 import org.gradle.internal.resources.ResourceLock
 import org.gradle.internal.resources.ResourceLockState
+import org.gradle.internal.service.ServiceRegistry
 import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.internal.work.WorkerLeaseService
 import org.gradle.test.fixtures.AbstractProjectBuilderSpec
@@ -52,10 +57,11 @@ class DefaultExecutionPlanTest extends AbstractProjectBuilderSpec {
     ProjectInternal root
     def workerLeaseService = Mock(WorkerLeaseService)
     def workerLease = Mock(WorkerLeaseRegistry.WorkerLease)
+    def includedBuildTaskGraph = Stub(IncludedBuildTaskGraph)
 
     def setup() {
         root = createRootProject(temporaryFolder.testDirectory)
-        def taskNodeFactory = new TaskNodeFactory(root.gradle, Stub(IncludedBuildTaskGraph))
+        def taskNodeFactory = new TaskNodeFactory(root.gradle, includedBuildTaskGraph)
         def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
         executionPlan = new DefaultExecutionPlan(workerLeaseService, root.gradle, taskNodeFactory, dependencyResolver)
         _ * workerLeaseService.getProjectLock(_, _) >> Mock(ResourceLock) {
@@ -850,6 +856,28 @@ class DefaultExecutionPlanTest extends AbstractProjectBuilderSpec {
         filtered(b)
     }
 
+    def "schedules task that depends on a task in another build once that task completes"() {
+        given:
+        def otherBuildTaskState = IncludedBuildTaskResource.State.WAITING
+        includedBuildTaskGraph.getTaskState(_, ':other') >> { otherBuildTaskState }
+        Task other = taskInAnotherBuild("other")
+        Task a = task("a", dependsOn: [other])
+
+        when:
+        addToGraphAndPopulate([a])
+
+        then:
+        executionPlan.selectNext(workerLease, Mock(ResourceLockState)) == null
+        executionPlan.selectNext(workerLease, Mock(ResourceLockState)) == null
+
+        when:
+        otherBuildTaskState = IncludedBuildTaskResource.State.SUCCESS
+        def node = executionPlan.selectNext(workerLease, Mock(ResourceLockState))
+
+        then:
+        node.task == a
+    }
+
     private void addToGraphAndPopulate(List tasks) {
         executionPlan.addEntryTasks(tasks)
         executionPlan.determineExecutionPlan()
@@ -961,6 +989,25 @@ class DefaultExecutionPlanTest extends AbstractProjectBuilderSpec {
         return task
     }
 
+    private TaskInternal taskInAnotherBuild(final String name) {
+        def otherBuild = Stub(BuildState) {
+            getBuildIdentifier() >> new DefaultBuildIdentifier("other")
+        }
+        def otherProject = Stub(ProjectInternal) {
+            getGradle() >> Stub(GradleInternal)
+            getServices() >> Stub(ServiceRegistry) {
+                get(BuildState) >> otherBuild
+            }
+        }
+        TaskInternal task = Mock()
+        task.getProject() >> otherProject
+        task.name >> name
+        task.path >> ':' + name
+        task.identityPath >> Path.path(':other:' + name)
+        task.toString() >> "task :other:$name"
+        return task
+    }
+
     private TaskInternal createTask(final String name) {
         TaskInternal task = Mock()
         TaskStateInternal state = Mock()
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import spock.lang.Specification
+
+class MutationPathIndexTest extends Specification {
+    def index = new MutationPathIndex('/' as char)
+
+    def "finds overlapping locations"() {
+        index.add("/root/a/b")
+
+        expect:
+        index.overlaps("/root/a/b")
+        index.overlaps("/root/a")
+        index.overlaps("/root")
+        index.overlaps("/root/a/b/c")
+        !index.overlaps("/root/a/bc")
+        !index.overlaps("/root/a/c")
+        !index.overlaps("/root/ab")
+        !index.overlaps("/other")
+    }
+
+    def "keeps location until it has been removed as often as it was added"() {
+        index.add("/root/a")
+        index.add("/root/a")
+
+        when:
+        index.remove("/root/a")
+
+        then:
+        index.overlaps("/root/a/b")
+
+        when:
+        index.remove("/root/a")
+
+        then:
+        !index.overlaps("/root/a/b")
+    }
+
+    def "can be cleared"() {
+        index.add("/root/a")
+
+        when:
+        index.clear()
+
+        then:
+        !index.overlaps("/root/a")
+    }
+}
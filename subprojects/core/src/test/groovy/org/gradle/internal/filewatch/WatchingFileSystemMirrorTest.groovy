@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch
+
+import org.gradle.internal.file.FileType
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.impl.DefaultFileSystemMirror
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class WatchingFileSystemMirrorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def watcher = Mock(FileWatcher)
+    def watcherFactory = Mock(FileWatcherFactory)
+    def mirror = new WatchingFileSystemMirror(new DefaultFileSystemMirror({ false }), watcherFactory)
+
+    def "discards all state at end of build when retention is disabled"() {
+        def snapshot = snapshot(tmpDir.file("a"))
+
+        when:
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(snapshot)
+        mirror.beforeBuildFinished()
+
+        then:
+        mirror.getSnapshot(snapshot.absolutePath) == null
+        0 * watcherFactory._
+    }
+
+    def "retains state captured for watched locations until a change is reported"() {
+        def dir = tmpDir.createDir("dir")
+        def first = snapshot(dir)
+        def second = snapshot(dir)
+        System.setProperty(WatchingFileSystemMirror.RETENTION_ENABLED_PROPERTY, "true")
+
+        when:
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(first)
+        mirror.beforeBuildFinished()
+
+        then:
+        1 * watcherFactory.watch(_, mirror) >> watcher
+        1 * watcher.watch({ it.contains(dir) })
+        mirror.getSnapshot(dir.path) == null
+
+        when:
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(second)
+        mirror.beforeBuildFinished()
+
+        then:
+        0 * watcher.watch(_)
+        mirror.getSnapshot(dir.path) == second
+
+        when:
+        mirror.onChange(watcher, FileWatcherEvent.modify(dir.file("child")))
+
+        then:
+        mirror.getSnapshot(dir.path) == null
+    }
+
+    def "watches a deleted root again once it has been recreated and snapshotted"() {
+        def dir = tmpDir.createDir("dir")
+        def retained = snapshot(dir)
+        def recreated = snapshot(dir)
+        System.setProperty(WatchingFileSystemMirror.RETENTION_ENABLED_PROPERTY, "true")
+        watcherFactory.watch(_, mirror) >> watcher
+
+        given:
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(snapshot(dir))
+        mirror.beforeBuildFinished()
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(retained)
+        mirror.beforeBuildFinished()
+
+        when:
+        dir.deleteDir()
+        mirror.onChange(watcher, FileWatcherEvent.delete(dir))
+
+        then:
+        mirror.getSnapshot(dir.path) == null
+
+        when:
+        dir.createDir()
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(snapshot(dir))
+        mirror.beforeBuildFinished()
+
+        then:
+        1 * watcher.watch({ it.contains(dir) })
+        mirror.getSnapshot(dir.path) == null
+
+        when:
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(recreated)
+        mirror.beforeBuildFinished()
+
+        then:
+        0 * watcher.watch(_)
+        mirror.getSnapshot(dir.path) == recreated
+    }
+
+    def "discards all state when events are lost"() {
+        def dir = tmpDir.createDir("dir")
+        System.setProperty(WatchingFileSystemMirror.RETENTION_ENABLED_PROPERTY, "true")
+        watcherFactory.watch(_, _) >> watcher
+
+        given:
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(snapshot(dir))
+        mirror.beforeBuildFinished()
+        mirror.afterBuildStarted()
+        mirror.putSnapshot(snapshot(dir))
+        mirror.beforeBuildFinished()
+
+        when:
+        mirror.onChange(watcher, FileWatcherEvent.undefined())
+
+        then:
+        mirror.getSnapshot(dir.path) == null
+    }
+
+    private FileSystemLocationSnapshot snapshot(File file) {
+        def snapshot = Stub(FileSystemLocationSnapshot)
+        _ * snapshot.absolutePath >> file.absolutePath
+        _ * snapshot.type >> FileType.Directory
+        return snapshot
+    }
+}
@@ -152,6 +152,31 @@ class HtmlReportRendererTest extends Specification {
         destDir.file("css/base-style.css").file
     }
 
+    def "can render pages concurrently"() {
+        def destDir = tmpDir.file("out")
+        def reportRenderer = Mock(ReportRenderer)
+        def pageRenderer = Stub(ReportRenderer) {
+            render(_, _) >> { String model, HtmlPageBuilder<SimpleHtmlWriter> builder ->
+                def link = builder.requireResource(getClass().getResource("base-style.css"))
+                builder.output.startElement("pre").characters(model + ":" + link).endElement()
+            }
+        }
+
+        when:
+        renderer.render("model", reportRenderer, destDir)
+
+        then:
+        1 * reportRenderer.render(_, _) >> { String model, HtmlReportBuilder builder ->
+            (0..<20).collect { index ->
+                Thread.start { builder.renderHtmlPage("child/page${index}.html", "page${index}" as String, pageRenderer) }
+            }*.join()
+        }
+
+        and:
+        (0..<20).every { destDir.file("child/page${it}.html").getText("utf-8").contains("<pre>page${it}:../css/base-style.css</pre>") }
+        destDir.file("css/base-style.css").file
+    }
+
     def resource(String name) {
         def file = tmpDir.file("tmp", name)
         file.parentFile.mkdirs()
@@ -16,6 +16,7 @@
 
 package org.gradle.cache.internal
 
+import com.google.common.cache.Weigher
 import org.gradle.api.Transformer
 
 import java.util.concurrent.ConcurrentHashMap
@@ -26,6 +27,11 @@ class TestCrossBuildInMemoryCacheFactory implements CrossBuildInMemoryCacheFacto
         return new TestCache<K, V>()
     }
 
+    @Override
+    <K, V> CrossBuildInMemoryCache<K, V> newBoundedCache(String displayName, Weigher<? super K, ? super V> weigher, long maxWeight) {
+        return new TestCache<K, V>()
+    }
+
     @Override
     <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache() {
         return new TestCache<Class<?>, V>()
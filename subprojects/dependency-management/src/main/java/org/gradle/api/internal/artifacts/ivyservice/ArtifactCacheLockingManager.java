@@ -18,6 +18,7 @@
 import javax.annotation.concurrent.ThreadSafe;
 import org.gradle.cache.CacheAccess;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 /**
@@ -33,4 +34,18 @@ public interface ArtifactCacheLockingManager extends CacheAccess {
      *
      */
     <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer);
+
+    /**
+     * Runs the given action while holding the lock that protects the entry with the given key in a cache created by {@link #createCache(String, Serializer, Serializer)},
+     * as well as any files stored for that key. This is the lock of the whole artifact cache, unless the metadata caches are striped,
+     * in which case it is the lock of the stripe that holds the key.
+     */
+    <K, T> T useCache(PersistentIndexedCache<K, ?> indexedCache, K key, Factory<? extends T> action);
+
+    /**
+     * Runs the given action while holding the lock that protects the entry with the given key in a cache created by {@link #createCache(String, Serializer, Serializer)}.
+     *
+     * @see #useCache(PersistentIndexedCache, Object, Factory)
+     */
+    <K> void useCache(PersistentIndexedCache<K, ?> indexedCache, K key, Runnable action);
 }
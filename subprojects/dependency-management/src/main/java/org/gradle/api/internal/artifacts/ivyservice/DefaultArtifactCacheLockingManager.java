@@ -27,21 +27,33 @@
 import org.gradle.cache.internal.CompositeCleanupAction;
 import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
 import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.cache.internal.StripedPersistentIndexedCache;
 import org.gradle.cache.internal.UnusedVersionsCacheCleanup;
 import org.gradle.cache.internal.UsedGradleVersions;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.file.FileAccessTimeJournal;
 import org.gradle.internal.resource.cached.ExternalResourceFileStore;
 import org.gradle.internal.serialize.Serializer;
 
 import javax.annotation.Nullable;
 import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_EXTERNAL_CACHE_ENTRIES;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultArtifactCacheLockingManager implements ArtifactCacheLockingManager, Closeable {
+    /**
+     * The number of stripes to partition the metadata caches into. Each stripe has its own cross-process lock, which is taken instead of the lock of the whole artifact cache
+     * when reading or writing the metadata of a module, so that processes sharing the artifact cache mostly contend on different locks.
+     */
+    public static final String LOCK_STRIPES_PROPERTY = "org.gradle.unsafe.artifact-cache.lock-stripes";
+
     private final PersistentCache cache;
+    private final List<PersistentCache> stripes;
 
     public DefaultArtifactCacheLockingManager(CacheRepository cacheRepository, ArtifactCacheMetadata cacheMetaData, FileAccessTimeJournal fileAccessTimeJournal,
                                               UsedGradleVersions usedGradleVersions) {
@@ -52,6 +64,25 @@ public DefaultArtifactCacheLockingManager(CacheRepository cacheRepository, Artif
                 .withLockOptions(mode(FileLockManager.LockMode.None)) // Don't need to lock anything until we use the caches
                 .withCleanup(createCleanupAction(cacheMetaData, fileAccessTimeJournal, usedGradleVersions))
                 .open();
+        stripes = openStripes(cacheRepository, cacheMetaData, Integer.getInteger(LOCK_STRIPES_PROPERTY, 0));
+    }
+
+    private static List<PersistentCache> openStripes(CacheRepository cacheRepository, ArtifactCacheMetadata cacheMetaData, int stripeCount) {
+        List<PersistentCache> stripes = new ArrayList<PersistentCache>();
+        if (stripeCount <= 1) {
+            return stripes;
+        }
+        // Processes using a different number of stripes would disagree on the stripe of an entry, so keep their stripes apart
+        File stripesDir = new File(cacheMetaData.getMetaDataStoreDirectory(), "stripes-" + stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(cacheRepository
+                .cache(new File(stripesDir, String.valueOf(i)))
+                .withCrossVersionCache(CacheBuilder.LockTarget.DefaultTarget)
+                .withDisplayName("artifact cache stripe " + i)
+                .withLockOptions(mode(FileLockManager.LockMode.None)) // Don't need to lock anything until we use the caches
+                .open());
+        }
+        return stripes;
     }
 
     private CleanupAction createCleanupAction(ArtifactCacheMetadata cacheMetaData, FileAccessTimeJournal fileAccessTimeJournal, UsedGradleVersions usedGradleVersions) {
@@ -71,7 +102,7 @@ private CleanupAction createCleanupAction(ArtifactCacheMetadata cacheMetaData, F
 
     @Override
     public void close() {
-        cache.close();
+        CompositeStoppable.stoppable(stripes).add(cache).stop();
     }
 
     @Override
@@ -94,8 +125,30 @@ public void useCache(Runnable action) {
         cache.useCache(action);
     }
 
+    @Override
+    public <K, T> T useCache(PersistentIndexedCache<K, ?> indexedCache, K key, Factory<? extends T> action) {
+        if (indexedCache instanceof StripedPersistentIndexedCache) {
+            return ((StripedPersistentIndexedCache<K, ?>) indexedCache).useStripe(key, action);
+        }
+        return cache.useCache(action);
+    }
+
+    @Override
+    public <K> void useCache(PersistentIndexedCache<K, ?> indexedCache, K key, final Runnable action) {
+        useCache(indexedCache, key, new Factory<Object>() {
+            @Override
+            public Object create() {
+                action.run();
+                return null;
+            }
+        });
+    }
+
     @Override
     public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        if (!stripes.isEmpty()) {
+            return new StripedPersistentIndexedCache<K, V>(stripes, PersistentIndexedCacheParameters.of(cacheName, keySerializer, valueSerializer));
+        }
         String cacheFileInMetaDataStore = CacheLayout.META_DATA.getKey() + "/" + cacheName;
         final PersistentIndexedCache<K, V> persistentCache = cache.createCache(PersistentIndexedCacheParameters.of(cacheFileInMetaDataStore, keySerializer, valueSerializer));
         return new CacheLockingPersistentCache<K, V>(persistentCache);
@@ -68,7 +68,7 @@ private PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCac
     @Override
     protected CachedMetadata get(ModuleComponentAtRepositoryKey key) {
         final PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache = getCache();
-        return artifactCacheLockingManager.useCache(new Factory<CachedMetadata>() {
+        return artifactCacheLockingManager.useCache(cache, key, new Factory<CachedMetadata>() {
             @Override
             public CachedMetadata create() {
                 ModuleMetadataCacheEntry entry = cache.get(key);
@@ -94,8 +94,8 @@ protected void store(final ModuleComponentAtRepositoryKey key, final ModuleMetad
         if (entry.isMissing()) {
             getCache().put(key, entry);
         } else {
-            // Need to lock the cache in order to write to the module metadata store
-            artifactCacheLockingManager.useCache(new Runnable() {
+            // Need to lock the entry in order to write its descriptor to the module metadata store
+            artifactCacheLockingManager.useCache(getCache(), key, new Runnable() {
                 @Override
                 public void run() {
                     final ModuleComponentResolveMetadata metadata = cachedMetadata.getMetadata();
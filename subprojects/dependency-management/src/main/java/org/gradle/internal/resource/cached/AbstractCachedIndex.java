@@ -56,7 +56,7 @@ private PersistentIndexedCache<K, V> initPersistentCache() {
     public V lookup(final K key) {
         assertKeyNotNull(key);
 
-        V result = artifactCacheLockingManager.useCache(new Factory<V>() {
+        V result = artifactCacheLockingManager.useCache(getPersistentCache(), key, new Factory<V>() {
             @Override
             public V create() {
                 V found = getPersistentCache().get(key);
@@ -79,7 +79,7 @@ public V create() {
     }
 
     protected void storeInternal(final K key, final V entry) {
-        artifactCacheLockingManager.useCache(new Runnable() {
+        artifactCacheLockingManager.useCache(getPersistentCache(), key, new Runnable() {
             @Override
             public void run() {
                 getPersistentCache().put(key, entry);
@@ -101,7 +101,7 @@ protected void assertArtifactFileNotNull(File artifactFile) {
 
     public void clear(final K key) {
         assertKeyNotNull(key);
-        artifactCacheLockingManager.useCache(new Runnable() {
+        artifactCacheLockingManager.useCache(getPersistentCache(), key, new Runnable() {
             @Override
             public void run() {
                 getPersistentCache().remove(key);
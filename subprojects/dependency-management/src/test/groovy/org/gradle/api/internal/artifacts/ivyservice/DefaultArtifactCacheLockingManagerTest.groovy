@@ -17,10 +17,14 @@
 package org.gradle.api.internal.artifacts.ivyservice
 
 import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.cache.internal.StripedPersistentIndexedCache
 import org.gradle.cache.internal.UsedGradleVersions
+import org.gradle.internal.Factory
 import org.gradle.internal.resource.local.ModificationTimeFileAccessTimeJournal
+import org.gradle.internal.serialize.BaseSerializerFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.testfixtures.internal.InMemoryCacheFactory
+import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 import spock.lang.AutoCleanup
 import spock.lang.Specification
@@ -28,8 +32,10 @@ import spock.lang.Subject
 
 class DefaultArtifactCacheLockingManagerTest extends Specification {
     @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties()
 
-    def cacheRepository = new DefaultCacheRepository(null, new InMemoryCacheFactory())
+    def cacheFactory = new InMemoryCacheFactory()
+    def cacheRepository = new DefaultCacheRepository(null, cacheFactory)
     def cacheDir = temporaryFolder.createDir(CacheLayout.ROOT.key)
     def resourcesDir = cacheDir.createDir(CacheLayout.RESOURCES.key)
     def filesDir = cacheDir.createDir(CacheLayout.FILE_STORE.key)
@@ -101,4 +107,27 @@ class DefaultArtifactCacheLockingManagerTest extends Specification {
         then:
         oldCacheDir.assertDoesNotExist()
     }
+
+    def "partitions metadata caches into stripes with their own locks when enabled"() {
+        given:
+        System.setProperty(DefaultArtifactCacheLockingManager.LOCK_STRIPES_PROPERTY, "4")
+        def stripedLockingManager = new DefaultArtifactCacheLockingManager(cacheRepository, artifactCacheMetadata, fileAccessTimeJournal, usedGradleVersions)
+        def cache = stripedLockingManager.createCache("module-metadata", BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER)
+
+        when:
+        cache.put("key", "value")
+
+        then:
+        cache instanceof StripedPersistentIndexedCache
+        cache.get("key") == "value"
+        stripedLockingManager.useCache(cache, "key", { cache.get("key") } as Factory) == "value"
+
+        and:
+        def stripesContainingKey = cacheFactory.caches.findAll { it.value.get("key") != null }.keySet()*.left
+        stripesContainingKey.size() == 1
+        stripesContainingKey[0].parentFile == metaDataDir.file("descriptors/stripes-4")
+
+        cleanup:
+        stripedLockingManager?.close()
+    }
 }
@@ -71,7 +71,7 @@ class DefaultModuleArtifactCacheTest extends Specification {
         index.store(key, testFile, BigInteger.TEN)
 
         then:
-        1 * cacheLockingManager.useCache(_) >> { Runnable action -> action.run() }
+        1 * cacheLockingManager.useCache(persistentIndexedCache, key, _) >> { cache, k, Runnable action -> action.run() }
         1 * timeProvider.currentTime >> 123
         1 * persistentIndexedCache.put(key, _) >> { k, v ->
             assert v.cachedAt == 123
@@ -122,8 +122,8 @@ class DefaultModuleArtifactCacheTest extends Specification {
 
     def createEntryInPersistentCache() {
         1 * cacheLockingManager.createCache(persistentCacheFile, _, _) >> persistentIndexedCache
-        1 * cacheLockingManager.useCache(_) >> { Factory<?> factory -> factory.create()}
         def key = new ArtifactAtRepositoryKey("RepoID", Stub(ModuleComponentArtifactIdentifier))
+        1 * cacheLockingManager.useCache(persistentIndexedCache, key, _) >> { cache, k, Factory<?> factory -> factory.create()}
         1 * persistentIndexedCache.get(key) >> cachedArtifact
         key
     }
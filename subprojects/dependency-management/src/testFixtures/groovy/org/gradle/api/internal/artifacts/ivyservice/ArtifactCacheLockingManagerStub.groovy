@@ -45,6 +45,16 @@ class ArtifactCacheLockingManagerStub implements ArtifactCacheLockingManager {
         action.run()
     }
 
+    @Override
+    <K, T> T useCache(PersistentIndexedCache<K, ?> indexedCache, K key, Factory<? extends T> action) {
+        action.create()
+    }
+
+    @Override
+    <K> void useCache(PersistentIndexedCache<K, ?> indexedCache, K key, Runnable action) {
+        action.run()
+    }
+
     @Override
     <T> T withFileLock(Factory<? extends T> action) {
         action.create()
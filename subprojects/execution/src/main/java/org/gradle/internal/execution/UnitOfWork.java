@@ -107,8 +107,8 @@ default boolean isTaskHistoryMaintained() {
      * Paths to locations changed by the unit of work.
      *
      * <p>
-     * We don't want to invalidate the whole file system mirror for artifact transformations, since I know exactly which parts need to be invalidated.
-     * For tasks though, we still need to invalidate everything.
+     * We don't want to invalidate the whole file system mirror when we know exactly which parts need to be invalidated.
+     * This is the case for artifact transformations and for tasks with declared outputs, where only the declared outputs, local state and destroyables are invalidated.
      * </p>
      *
      * @return {@link Optional#empty()} if the unit of work cannot guarantee that only some files have been changed or an iterable of the paths which were changed by the unit of work.
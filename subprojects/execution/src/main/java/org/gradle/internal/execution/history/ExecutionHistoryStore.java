@@ -28,6 +28,12 @@
 public interface ExecutionHistoryStore {
     Optional<AfterPreviousExecutionState> load(String key);
 
+    /**
+     * Returns how long the last recorded execution took in milliseconds.
+     * Stores that record execution times separately return it without loading the rest of the execution state.
+     */
+    Optional<Long> loadExecutionTime(String key);
+
     void store(String key,
                OriginMetadata originMetadata,
                ImplementationSnapshot implementation,
@@ -19,6 +19,7 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.cache.IndexedCacheStorageFormat;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.caching.internal.origin.OriginMetadata;
@@ -27,9 +28,11 @@
 import org.gradle.internal.execution.history.ExecutionHistoryStore;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
 
+import javax.annotation.Nullable;
 import java.util.Optional;
 
 import static com.google.common.collect.ImmutableSortedMap.copyOfSorted;
@@ -38,16 +41,32 @@
 public class DefaultExecutionHistoryStore implements ExecutionHistoryStore {
 
     private final PersistentIndexedCache<String, AfterPreviousExecutionState> store;
+    // Kept separately when requested, so that execution times can be read without deserializing the whole execution state
+    @Nullable
+    private final PersistentIndexedCache<String, Long> executionTimes;
 
     public DefaultExecutionHistoryStore(ExecutionHistoryCacheAccess executionHistoryCacheAccess, StringInterner stringInterner) {
+        this(executionHistoryCacheAccess, stringInterner, false);
+    }
+
+    public DefaultExecutionHistoryStore(ExecutionHistoryCacheAccess executionHistoryCacheAccess, StringInterner stringInterner, boolean recordExecutionTimes) {
         DefaultPreviousExecutionStateSerializer serializer = new DefaultPreviousExecutionStateSerializer(
             new FileCollectionFingerprintSerializer(stringInterner));
 
         this.store = executionHistoryCacheAccess.createCache(
-            PersistentIndexedCacheParameters.of("executionHistory", String.class, serializer),
+            PersistentIndexedCacheParameters.of("executionHistory", String.class, serializer)
+                .withStorageFormat(IndexedCacheStorageFormat.forFrequentlyWrittenCache()),
             10000,
             false
         );
+        this.executionTimes = recordExecutionTimes
+            ? executionHistoryCacheAccess.createCache(
+                PersistentIndexedCacheParameters.of("executionTimes", String.class, BaseSerializerFactory.LONG_SERIALIZER)
+                    .withStorageFormat(IndexedCacheStorageFormat.forFrequentlyWrittenCache()),
+                10000,
+                false
+            )
+            : null;
     }
 
     @Override
@@ -55,6 +74,14 @@ public Optional<AfterPreviousExecutionState> load(String key) {
         return Optional.ofNullable(store.get(key));
     }
 
+    @Override
+    public Optional<Long> loadExecutionTime(String key) {
+        if (executionTimes == null) {
+            return load(key).map(state -> state.getOriginMetadata().getExecutionTime());
+        }
+        return Optional.ofNullable(executionTimes.get(key));
+    }
+
     @Override
     public void store(
         String key,
@@ -75,11 +102,17 @@ public void store(
             prepareForSerialization(outputFileProperties),
             successful
         ));
+        if (executionTimes != null) {
+            executionTimes.put(key, originMetadata.getExecutionTime());
+        }
     }
 
     @Override
     public void remove(String key) {
         store.remove(key);
+        if (executionTimes != null) {
+            executionTimes.remove(key);
+        }
     }
 
     private static ImmutableSortedMap<String, FileCollectionFingerprint> prepareForSerialization(ImmutableSortedMap<String, CurrentFileCollectionFingerprint> fingerprints) {
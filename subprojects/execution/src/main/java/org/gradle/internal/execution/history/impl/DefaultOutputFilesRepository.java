@@ -16,6 +16,7 @@
 
 package org.gradle.internal.execution.history.impl;
 
+import org.gradle.cache.IndexedCacheStorageFormat;
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
@@ -103,6 +104,7 @@ public void postVisitDirectory(DirectorySnapshot directorySnapshot) {
 
     private static PersistentIndexedCacheParameters<String, Boolean> cacheParameters(InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
         return PersistentIndexedCacheParameters.of("outputFiles", String.class, Boolean.class)
+            .withStorageFormat(IndexedCacheStorageFormat.forFrequentlyWrittenCache())
             .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(100000, true));
     }
 
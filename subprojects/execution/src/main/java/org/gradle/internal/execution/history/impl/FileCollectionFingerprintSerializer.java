@@ -26,10 +26,17 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Map;
 
+/**
+ * Serializes a file collection fingerprint as its root hashes and a separately encoded block of file fingerprints.
+ *
+ * The file fingerprints are decoded on demand, see {@link LazyFileCollectionFingerprint}.
+ */
 public class FileCollectionFingerprintSerializer implements Serializer<FileCollectionFingerprint> {
 
     private final FingerprintMapSerializer fingerprintMapSerializer;
@@ -44,12 +51,12 @@ public FileCollectionFingerprintSerializer(StringInterner stringInterner) {
 
     @Override
     public FileCollectionFingerprint read(Decoder decoder) throws IOException {
-        Map<String, FileSystemLocationFingerprint> fingerprints = fingerprintMapSerializer.read(decoder);
-        if (fingerprints.isEmpty()) {
+        byte[] encodedFingerprints = decoder.readBinary();
+        if (encodedFingerprints.length == 0) {
             return FileCollectionFingerprint.EMPTY;
         }
         ImmutableMultimap<String, HashCode> rootHashes = readRootHashes(decoder);
-        return new SerializableFileCollectionFingerprint(fingerprints, rootHashes);
+        return new LazyFileCollectionFingerprint(rootHashes, encodedFingerprints, fingerprintMapSerializer);
     }
 
     private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) throws IOException {
@@ -58,8 +65,9 @@ private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) thro
             return ImmutableMultimap.of();
         }
         ImmutableMultimap.Builder<String, HashCode> builder = ImmutableMultimap.builder();
+        FrontCodedPaths.Reader paths = new FrontCodedPaths.Reader(stringInterner);
         for (int i = 0; i < numberOfRoots; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
+            String absolutePath = paths.read(decoder);
             HashCode rootHash = hashCodeSerializer.read(decoder);
             builder.put(absolutePath, rootHash);
         }
@@ -68,16 +76,34 @@ private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) thro
 
     @Override
     public void write(Encoder encoder, FileCollectionFingerprint value) throws Exception {
-        fingerprintMapSerializer.write(encoder, value.getFingerprints());
-        if (!value.getFingerprints().isEmpty()) {
+        byte[] encodedFingerprints = value instanceof LazyFileCollectionFingerprint
+            ? ((LazyFileCollectionFingerprint) value).getEncodedFingerprints()
+            : null;
+        if (encodedFingerprints == null) {
+            encodedFingerprints = encodeFingerprints(value.getFingerprints());
+        }
+        encoder.writeBinary(encodedFingerprints);
+        if (encodedFingerprints.length != 0) {
             writeRootHashes(encoder, value.getRootHashes());
         }
     }
 
+    private byte[] encodeFingerprints(Map<String, FileSystemLocationFingerprint> fingerprints) throws Exception {
+        if (fingerprints.isEmpty()) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder fingerprintsEncoder = new KryoBackedEncoder(outputStream);
+        fingerprintMapSerializer.write(fingerprintsEncoder, fingerprints);
+        fingerprintsEncoder.flush();
+        return outputStream.toByteArray();
+    }
+
     private void writeRootHashes(Encoder encoder, ImmutableMultimap<String, HashCode> rootHashes) throws IOException {
         encoder.writeSmallInt(rootHashes.size());
+        FrontCodedPaths.Writer paths = new FrontCodedPaths.Writer();
         for (Map.Entry<String, HashCode> entry : rootHashes.entries()) {
-            encoder.writeString(entry.getKey());
+            paths.write(encoder, entry.getKey());
             hashCodeSerializer.write(encoder, entry.getValue());
         }
     }
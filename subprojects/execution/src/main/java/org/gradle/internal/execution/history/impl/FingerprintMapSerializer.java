@@ -32,13 +32,22 @@
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Serializes the fingerprints of a file collection.
+ *
+ * <p>Each absolute path is front coded against the previous one, see {@link FrontCodedPaths}.
+ * The file type and the kind of normalized path are packed into a single tag. A normalized path that is a suffix of the absolute path, which is the case for relative and name only normalization, is written as its length.</p>
+ */
 public class FingerprintMapSerializer extends AbstractSerializer<Map<String, FileSystemLocationFingerprint>> {
-    private static final byte DEFAULT_NORMALIZATION = 1;
-    private static final byte IGNORED_PATH_NORMALIZATION = 2;
+    private static final int DIR_FINGERPRINT = 1;
+    private static final int MISSING_FILE_FINGERPRINT = 2;
+    private static final int REGULAR_FILE_FINGERPRINT = 3;
+    private static final int FILE_TYPE_MASK = 3;
 
-    private static final byte DIR_FINGERPRINT = 1;
-    private static final byte MISSING_FILE_FINGERPRINT = 2;
-    private static final byte REGULAR_FILE_FINGERPRINT = 3;
+    private static final int NORMALIZED_PATH_STRING = 1 << 2;
+    private static final int NORMALIZED_PATH_SUFFIX = 2 << 2;
+    private static final int IGNORED_PATH_NORMALIZATION = 3 << 2;
+    private static final int NORMALIZATION_MASK = 3 << 2;
 
     private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
     private final StringInterner stringInterner;
@@ -51,23 +60,31 @@ public FingerprintMapSerializer(StringInterner stringInterner) {
     public Map<String, FileSystemLocationFingerprint> read(Decoder decoder) throws IOException {
         int fingerprintCount = decoder.readSmallInt();
         Map<String, FileSystemLocationFingerprint> fingerprints = new LinkedHashMap<String, FileSystemLocationFingerprint>(fingerprintCount);
+        FrontCodedPaths.Reader paths = new FrontCodedPaths.Reader(stringInterner);
         for (int i = 0; i < fingerprintCount; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
-            FileSystemLocationFingerprint fingerprint = readFingerprint(decoder);
+            String absolutePath = paths.read(decoder);
+            FileSystemLocationFingerprint fingerprint = readFingerprint(absolutePath, decoder);
             fingerprints.put(absolutePath, fingerprint);
         }
         return fingerprints;
     }
 
-    private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IOException {
-        FileType fileType = readFileType(decoder);
+    private FileSystemLocationFingerprint readFingerprint(String absolutePath, Decoder decoder) throws IOException {
+        int tag = decoder.readSmallInt();
+        FileType fileType = readFileType(tag & FILE_TYPE_MASK);
         HashCode contentHash = readContentHash(fileType, decoder);
 
-        byte fingerprintKind = decoder.readByte();
-        switch (fingerprintKind) {
-            case DEFAULT_NORMALIZATION:
+        switch (tag & ~FILE_TYPE_MASK) {
+            case NORMALIZED_PATH_STRING:
                 String normalizedPath = decoder.readString();
                 return new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedPath), fileType, contentHash);
+            case NORMALIZED_PATH_SUFFIX:
+                int suffixLength = decoder.readSmallInt();
+                if (suffixLength > absolutePath.length()) {
+                    throw new RuntimeException("Unable to read serialized file fingerprint. Unrecognized value found in the data stream.");
+                }
+                String suffix = absolutePath.substring(absolutePath.length() - suffixLength);
+                return new DefaultFileSystemLocationFingerprint(stringInterner.intern(suffix), fileType, contentHash);
             case IGNORED_PATH_NORMALIZATION:
                 return IgnoredPathFileSystemLocationFingerprint.create(fileType, contentHash);
             default:
@@ -88,8 +105,7 @@ private HashCode readContentHash(FileType fileType, Decoder decoder) throws IOEx
         }
     }
 
-    private FileType readFileType(Decoder decoder) throws IOException {
-        byte fileKind = decoder.readByte();
+    private FileType readFileType(int fileKind) {
         switch (fileKind) {
             case DIR_FINGERPRINT:
                 return FileType.Directory;
@@ -105,10 +121,10 @@ private FileType readFileType(Decoder decoder) throws IOException {
     @Override
     public void write(Encoder encoder, Map<String, FileSystemLocationFingerprint> value) throws Exception {
         encoder.writeSmallInt(value.size());
-        for (String key : value.keySet()) {
-            encoder.writeString(key);
-            FileSystemLocationFingerprint fingerprint = value.get(key);
-            writeFingerprint(encoder, fingerprint);
+        FrontCodedPaths.Writer paths = new FrontCodedPaths.Writer();
+        for (Map.Entry<String, FileSystemLocationFingerprint> entry : value.entrySet()) {
+            paths.write(encoder, entry.getKey());
+            writeFingerprint(encoder, entry.getKey(), entry.getValue());
         }
     }
 
@@ -127,29 +143,41 @@ public int hashCode() {
         return Objects.hashCode(super.hashCode(), hashCodeSerializer);
     }
 
-    private void writeFingerprint(Encoder encoder, FileSystemLocationFingerprint value) throws IOException {
+    private void writeFingerprint(Encoder encoder, String absolutePath, FileSystemLocationFingerprint value) throws IOException {
+        int fileKind;
         switch (value.getType()) {
             case Directory:
-                encoder.writeByte(DIR_FINGERPRINT);
+                fileKind = DIR_FINGERPRINT;
                 break;
             case Missing:
-                encoder.writeByte(MISSING_FILE_FINGERPRINT);
+                fileKind = MISSING_FILE_FINGERPRINT;
                 break;
             case RegularFile:
-                encoder.writeByte(REGULAR_FILE_FINGERPRINT);
-                hashCodeSerializer.write(encoder, value.getNormalizedContentHash());
+                fileKind = REGULAR_FILE_FINGERPRINT;
                 break;
             default:
                 throw new AssertionError();
         }
 
+        int normalization;
+        String normalizedPath = null;
         if (value instanceof DefaultFileSystemLocationFingerprint) {
-            encoder.writeByte(DEFAULT_NORMALIZATION);
-            encoder.writeString(value.getNormalizedPath());
+            normalizedPath = value.getNormalizedPath();
+            normalization = absolutePath.endsWith(normalizedPath) ? NORMALIZED_PATH_SUFFIX : NORMALIZED_PATH_STRING;
         } else if (value instanceof IgnoredPathFileSystemLocationFingerprint) {
-            encoder.writeByte(IGNORED_PATH_NORMALIZATION);
+            normalization = IGNORED_PATH_NORMALIZATION;
         } else {
             throw new AssertionError();
         }
+
+        encoder.writeSmallInt(fileKind | normalization);
+        if (fileKind == REGULAR_FILE_FINGERPRINT) {
+            hashCodeSerializer.write(encoder, value.getNormalizedContentHash());
+        }
+        if (normalization == NORMALIZED_PATH_SUFFIX) {
+            encoder.writeSmallInt(normalizedPath.length());
+        } else if (normalization == NORMALIZED_PATH_STRING) {
+            encoder.writeString(normalizedPath);
+        }
     }
 }
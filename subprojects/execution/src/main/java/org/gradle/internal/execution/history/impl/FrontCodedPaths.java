@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.io.IOException;
+
+/**
+ * Writes a sequence of paths, encoding each path as the length of the prefix it shares with the previous path and the remaining suffix.
+ *
+ * Paths of a file collection are visited depth first, so consecutive paths usually share most of their characters.
+ */
+class FrontCodedPaths {
+    private FrontCodedPaths() {
+    }
+
+    static class Writer {
+        private String previous = "";
+
+        void write(Encoder encoder, String path) throws IOException {
+            int prefixLength = commonPrefixLength(previous, path);
+            encoder.writeSmallInt(prefixLength);
+            encoder.writeString(path.substring(prefixLength));
+            previous = path;
+        }
+
+        private static int commonPrefixLength(String a, String b) {
+            int max = Math.min(a.length(), b.length());
+            int length = 0;
+            while (length < max && a.charAt(length) == b.charAt(length)) {
+                length++;
+            }
+            // Do not split a surrogate pair
+            if (length > 0 && Character.isHighSurrogate(a.charAt(length - 1))) {
+                length--;
+            }
+            return length;
+        }
+    }
+
+    static class Reader {
+        private final StringInterner stringInterner;
+        private String previous = "";
+
+        Reader(StringInterner stringInterner) {
+            this.stringInterner = stringInterner;
+        }
+
+        String read(Decoder decoder) throws IOException {
+            int prefixLength = decoder.readSmallInt();
+            String suffix = decoder.readString();
+            if (prefixLength > previous.length()) {
+                throw new RuntimeException("Unable to read serialized path. Unrecognized value found in the data stream.");
+            }
+            String path = stringInterner.intern(prefixLength == 0 ? suffix : previous.substring(0, prefixLength) + suffix);
+            previous = path;
+            return path;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableMultimap;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+/**
+ * A fingerprint read from the execution history, which decodes the fingerprints of the individual files only when they are first requested.
+ *
+ * The root hashes are decoded eagerly, so that an unchanged file collection can be detected without decoding its fingerprints.
+ */
+class LazyFileCollectionFingerprint implements FileCollectionFingerprint {
+    private final ImmutableMultimap<String, HashCode> rootHashes;
+    private final FingerprintMapSerializer fingerprintMapSerializer;
+    private byte[] encodedFingerprints;
+    private Map<String, FileSystemLocationFingerprint> fingerprints;
+
+    LazyFileCollectionFingerprint(ImmutableMultimap<String, HashCode> rootHashes, byte[] encodedFingerprints, FingerprintMapSerializer fingerprintMapSerializer) {
+        this.rootHashes = rootHashes;
+        this.encodedFingerprints = encodedFingerprints;
+        this.fingerprintMapSerializer = fingerprintMapSerializer;
+    }
+
+    @Override
+    public synchronized Map<String, FileSystemLocationFingerprint> getFingerprints() {
+        if (fingerprints == null) {
+            try {
+                fingerprints = fingerprintMapSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(encodedFingerprints)));
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            encodedFingerprints = null;
+        }
+        return fingerprints;
+    }
+
+    @Override
+    public ImmutableMultimap<String, HashCode> getRootHashes() {
+        return rootHashes;
+    }
+
+    /**
+     * Returns the encoded fingerprints, when they have not been decoded yet.
+     */
+    @Nullable
+    synchronized byte[] getEncodedFingerprints() {
+        return encodedFingerprints;
+    }
+}
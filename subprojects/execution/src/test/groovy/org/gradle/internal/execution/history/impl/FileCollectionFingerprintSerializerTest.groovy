@@ -90,4 +90,59 @@ class FileCollectionFingerprintSerializerTest extends SerializerSpec {
         out.fingerprints.keySet() as List == ["/3", "/2", "/1"]
         out.rootHashes.keySet() as List == ["/3", "/2", "/1"]
     }
+
+    def "reads and writes paths sharing a prefix with the previous path"() {
+        def fingerprints = [
+            "/root": new DefaultFileSystemLocationFingerprint("", FileType.Directory, FileSystemLocationFingerprint.DIR_SIGNATURE),
+            "/root/a": new DefaultFileSystemLocationFingerprint("a", FileType.Directory, FileSystemLocationFingerprint.DIR_SIGNATURE),
+            "/root/a/b.txt": new DefaultFileSystemLocationFingerprint("a/b.txt", FileType.RegularFile, HashCode.fromInt(1)),
+            "/root/a/c.txt": new DefaultFileSystemLocationFingerprint("c.txt", FileType.RegularFile, HashCode.fromInt(2)),
+            "/root/ab.txt": new DefaultFileSystemLocationFingerprint("other/ab.txt", FileType.RegularFile, HashCode.fromInt(3)),
+            "/other": new DefaultFileSystemLocationFingerprint("/other", FileType.Missing, FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE)
+        ]
+
+        when:
+        def out = serialize(new SerializableFileCollectionFingerprint(
+            fingerprints,
+            ImmutableMultimap.of(
+                "/root", HashCode.fromInt(1234),
+                "/other", FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE)
+        ), serializer)
+
+        then:
+        out.fingerprints.keySet() as List == fingerprints.keySet() as List
+        out.fingerprints.every { path, fingerprint ->
+            def expected = fingerprints[path]
+            fingerprint.type == expected.type && fingerprint.normalizedPath == expected.normalizedPath && fingerprint.normalizedContentHash == expected.normalizedContentHash
+        }
+        out.rootHashes.keySet() as List == ["/root", "/other"]
+    }
+
+    def "decodes file fingerprints only when requested"() {
+        def rootHashes = ImmutableMultimap.of("/root", HashCode.fromInt(1234))
+
+        when:
+        def out = serialize(new SerializableFileCollectionFingerprint(
+            "/root/a": new DefaultFileSystemLocationFingerprint("a", FileType.RegularFile, HashCode.fromInt(1)),
+            rootHashes
+        ), serializer)
+
+        then:
+        out.rootHashes == rootHashes
+        out.encodedFingerprints != null
+
+        when:
+        def copy = serialize(out, serializer)
+
+        then:
+        out.encodedFingerprints != null
+        copy.fingerprints['/root/a'].normalizedPath == "a"
+
+        when:
+        def fingerprints = out.fingerprints
+
+        then:
+        fingerprints['/root/a'].normalizedContentHash == HashCode.fromInt(1)
+        out.encodedFingerprints == null
+    }
 }
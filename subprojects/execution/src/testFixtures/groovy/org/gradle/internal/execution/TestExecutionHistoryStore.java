@@ -44,6 +44,11 @@ public Optional<AfterPreviousExecutionState> load(String key) {
         return Optional.ofNullable(executionHistory.get(key));
     }
 
+    @Override
+    public Optional<Long> loadExecutionTime(String key) {
+        return load(key).map(execution -> execution.getOriginMetadata().getExecutionTime());
+    }
+
     @Override
     public void store(String key, OriginMetadata originMetadata, ImplementationSnapshot implementation, ImmutableList<ImplementationSnapshot> additionalImplementations, ImmutableSortedMap<String, ValueSnapshot> inputProperties, ImmutableSortedMap<String, CurrentFileCollectionFingerprint> inputFileProperties, ImmutableSortedMap<String, CurrentFileCollectionFingerprint> outputFileProperties, boolean successful) {
         executionHistory.put(key, new DefaultAfterPreviousExecutionState(
@@ -19,26 +19,49 @@
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 
 public class DefaultFileHasher implements FileHasher {
+    /**
+     * Files at least this large are hashed from their file channel, which the stream hasher can memory map, as the cost of setting up the mapping is then outweighed by not copying the content into the heap.
+     */
+    public static final long DEFAULT_MAPPED_HASHING_THRESHOLD = 1024 * 1024;
+    public static final long NO_MAPPED_HASHING = Long.MAX_VALUE;
+
+    // Files cannot be deleted on Windows while they are memory mapped, and mappings are only released on garbage collection
+    private static final boolean MAPPING_PREVENTS_DELETION = System.getProperty("os.name").toLowerCase().contains("windows");
+
     private final StreamHasher streamHasher;
+    private final long mappedHashingThreshold;
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, MAPPING_PREVENTS_DELETION ? NO_MAPPED_HASHING : DEFAULT_MAPPED_HASHING_THRESHOLD);
+    }
+
+    public DefaultFileHasher(StreamHasher streamHasher, long mappedHashingThreshold) {
         this.streamHasher = streamHasher;
+        this.mappedHashingThreshold = mappedHashingThreshold;
     }
 
     @Override
     public HashCode hash(File file) {
-        InputStream inputStream;
+        FileInputStream inputStream;
         try {
             inputStream = new FileInputStream(file);
         } catch (FileNotFoundException e) {
             throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
         }
         try {
+            if (mappedHashingThreshold != NO_MAPPED_HASHING) {
+                FileChannel channel = inputStream.getChannel();
+                if (channel.size() >= mappedHashingThreshold) {
+                    return streamHasher.hash(channel);
+                }
+            }
             return streamHasher.hash(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create hash for file '%s'.", file), e);
         } finally {
             try {
                 inputStream.close();
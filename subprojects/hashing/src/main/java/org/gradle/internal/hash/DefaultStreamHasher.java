@@ -21,20 +21,38 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
 public class DefaultStreamHasher implements StreamHasher {
     private static final HashCode SIGNATURE = Hashing.signature(DefaultStreamHasher.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Map large files in regions, so that the address space used for a single file stays bounded
+    private static final long MAPPED_REGION_SIZE = 64 * 1024 * 1024;
 
     private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
+    private final HashFunction hashFunction;
+    // Message digests copy mapped buffers through a temporary heap array, so mapping files only pays off for hash functions that read them in place
+    private final boolean mapFiles;
+
+    public DefaultStreamHasher() {
+        this(Hashing.defaultFunction());
+    }
+
+    public DefaultStreamHasher(HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+        this.mapFiles = hashFunction instanceof Murmur3HashFunction;
+    }
 
     @Override
     public HashCode hash(InputStream inputStream) {
         try {
             return doHash(inputStream, ByteStreams.nullOutputStream());
         } catch (IOException e) {
-            throw new UncheckedIOException("Failed to create MD5 hash for file content.", e);
+            throw new UncheckedIOException("Failed to create hash for file content.", e);
         }
     }
 
@@ -43,10 +61,32 @@ public HashCode hashCopy(InputStream inputStream, OutputStream outputStream) thr
         return doHash(inputStream, outputStream);
     }
 
+    @Override
+    public HashCode hash(FileChannel channel) throws IOException {
+        if (!mapFiles) {
+            return doHash(Channels.newInputStream(channel), ByteStreams.nullOutputStream());
+        }
+        PrimitiveHasher hasher = hashFunction.newPrimitiveHasher();
+        hasher.putHash(SIGNATURE);
+        long size = channel.size();
+        for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position));
+            try {
+                hasher.putBytes(region);
+            } catch (InternalError e) {
+                // Accessing a mapped region fails like this when the file has been truncated in the meantime
+                throw new IOException("Could not read memory mapped file content.", e);
+            } finally {
+                MappedBuffers.unmap(region);
+            }
+        }
+        return hasher.hash();
+    }
+
     private HashCode doHash(InputStream inputStream, OutputStream outputStream) throws IOException {
         byte[] buffer = takeBuffer();
         try {
-            PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+            PrimitiveHasher hasher = hashFunction.newPrimitiveHasher();
             hasher.putHash(SIGNATURE);
             while (true) {
                 int nread = inputStream.read(buffer);
@@ -70,7 +110,7 @@ private void returnBuffer(byte[] buffer) {
     private byte[] takeBuffer() {
         byte[] buffer = buffers.poll();
         if (buffer == null) {
-            buffer = new byte[8192];
+            buffer = new byte[BUFFER_SIZE];
         }
         return buffer;
     }
@@ -38,6 +38,8 @@ private Hashing() {}
 
     private static final HashFunction SHA1 = MessageDigestHashFunction.of("SHA-1");
 
+    private static final HashFunction MURMUR3 = new Murmur3HashFunction(0);
+
     private static final HashFunction DEFAULT = MD5;
 
     /**
@@ -120,6 +122,15 @@ public static HashFunction sha1() {
         return SHA1;
     }
 
+    /**
+     * Non-cryptographic 128-bit MurmurHash3 hashing function.
+     *
+     * Much faster than {@link #md5()}, but must not be used where hashes could be forged on purpose.
+     */
+    public static HashFunction murmur3() {
+        return MURMUR3;
+    }
+
     private static abstract class MessageDigestHashFunction implements HashFunction {
         public static MessageDigestHashFunction of(String algorithm) {
             MessageDigest prototype;
@@ -228,6 +239,11 @@ public void putBytes(byte[] bytes, int off, int len) {
             getDigest().update(bytes, off, len);
         }
 
+        @Override
+        public void putBytes(ByteBuffer buffer) {
+            getDigest().update(buffer);
+        }
+
         private void update(int length) {
             getDigest().update(buffer.array(), 0, length);
             castBuffer(buffer).clear();
@@ -283,7 +299,7 @@ public HashCode hash() {
         }
     }
 
-    private static class DefaultHasher implements Hasher {
+    static class DefaultHasher implements Hasher {
         private final PrimitiveHasher hasher;
         private String invalidReason;
 
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Releases the memory mapping of a buffer right away, instead of when the buffer is garbage collected.
+ *
+ * Uses {@code sun.misc.Unsafe.invokeCleaner()} on Java 9 and later, and the cleaner of the buffer on earlier versions.
+ * When neither is available, the mapping is left to be released by the garbage collector.
+ */
+final class MappedBuffers {
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    private static final Method GET_CLEANER;
+    private static final Method CLEAN;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        Method getCleaner = null;
+        Method clean = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+        } catch (Exception e) {
+            invokeCleaner = null;
+            try {
+                getCleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            } catch (Exception ignored) {
+                getCleaner = null;
+                clean = null;
+            }
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+        GET_CLEANER = getCleaner;
+        CLEAN = clean;
+    }
+
+    private MappedBuffers() {
+    }
+
+    /**
+     * Unmaps the given buffer. The buffer must not be accessed anymore afterwards.
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else if (GET_CLEANER != null) {
+                Object cleaner = GET_CLEANER.invoke(buffer);
+                if (cleaner != null) {
+                    CLEAN.invoke(cleaner);
+                }
+            }
+        } catch (Exception ignored) {
+            // The mapping is released once the buffer is garbage collected
+        }
+    }
+}
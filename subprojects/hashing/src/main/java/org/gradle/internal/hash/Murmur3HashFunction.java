@@ -0,0 +1,276 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import com.google.common.base.Charsets;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The 128-bit x64 variant of the non-cryptographic MurmurHash3 hash function.
+ *
+ * This is much faster than the message digest based hash functions, but must only be used where collisions are not a security concern.
+ * Based on the public domain reference implementation by Austin Appleby, and on the Google Guava project – https://github.com/google/guava.
+ */
+class Murmur3HashFunction implements HashFunction {
+    private final int seed;
+
+    Murmur3HashFunction(int seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public PrimitiveHasher newPrimitiveHasher() {
+        return new Murmur3Hasher(seed);
+    }
+
+    @Override
+    public Hasher newHasher() {
+        return new Hashing.DefaultHasher(newPrimitiveHasher());
+    }
+
+    @Override
+    public HashCode hashBytes(byte[] bytes) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putBytes(bytes);
+        return hasher.hash();
+    }
+
+    @Override
+    public HashCode hashString(CharSequence string) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putString(string);
+        return hasher.hash();
+    }
+
+    private static class Murmur3Hasher implements PrimitiveHasher {
+        private static final int CHUNK_SIZE = 16;
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        // Bytes that do not yet make up a full chunk
+        private final byte[] pending = new byte[CHUNK_SIZE];
+        private int pendingLength;
+        private long h1;
+        private long h2;
+        private long length;
+        private boolean done;
+
+        Murmur3Hasher(int seed) {
+            this.h1 = seed;
+            this.h2 = seed;
+        }
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            int pos = off;
+            int end = off + len;
+            if (pendingLength > 0) {
+                int count = Math.min(CHUNK_SIZE - pendingLength, len);
+                System.arraycopy(bytes, pos, pending, pendingLength, count);
+                pendingLength += count;
+                pos += count;
+                if (pendingLength < CHUNK_SIZE) {
+                    return;
+                }
+                processChunk(pending, 0);
+                pendingLength = 0;
+            }
+            while (end - pos >= CHUNK_SIZE) {
+                processChunk(bytes, pos);
+                pos += CHUNK_SIZE;
+            }
+            if (pos < end) {
+                System.arraycopy(bytes, pos, pending, 0, end - pos);
+                pendingLength = end - pos;
+            }
+        }
+
+        @Override
+        public void putBytes(ByteBuffer buffer) {
+            checkNotDone();
+            ByteBuffer bytes = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            while (pendingLength > 0 && bytes.hasRemaining()) {
+                putByte(bytes.get());
+            }
+            while (bytes.remaining() >= CHUNK_SIZE) {
+                long k1 = bytes.getLong();
+                long k2 = bytes.getLong();
+                processChunk(k1, k2);
+            }
+            while (bytes.hasRemaining()) {
+                putByte(bytes.get());
+            }
+            // Cast needed for running on Java 8 when compiled with Java 9+, see Hashing.MessageDigestHasher
+            ((Buffer) buffer).position(buffer.limit());
+        }
+
+        @Override
+        public void putByte(byte value) {
+            checkNotDone();
+            pending[pendingLength++] = value;
+            if (pendingLength == CHUNK_SIZE) {
+                processChunk(pending, 0);
+                pendingLength = 0;
+            }
+        }
+
+        @Override
+        public void putInt(int value) {
+            putByte((byte) value);
+            putByte((byte) (value >>> 8));
+            putByte((byte) (value >>> 16));
+            putByte((byte) (value >>> 24));
+        }
+
+        @Override
+        public void putLong(long value) {
+            putInt((int) value);
+            putInt((int) (value >>> 32));
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            putBytes(hashCode.getBytes());
+        }
+
+        private void processChunk(byte[] bytes, int off) {
+            processChunk(getLongLittleEndian(bytes, off), getLongLittleEndian(bytes, off + 8));
+        }
+
+        private void processChunk(long k1, long k2) {
+            length += CHUNK_SIZE;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        private void processRemaining() {
+            long k1 = 0;
+            long k2 = 0;
+            length += pendingLength;
+            for (int i = pendingLength - 1; i >= 8; i--) {
+                k2 ^= (long) (pending[i] & 0xff) << ((i - 8) * 8);
+            }
+            for (int i = Math.min(pendingLength, 8) - 1; i >= 0; i--) {
+                k1 ^= (long) (pending[i] & 0xff) << (i * 8);
+            }
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+            processRemaining();
+
+            h1 ^= length;
+            h2 ^= length;
+
+            h1 += h2;
+            h2 += h1;
+
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+
+            h1 += h2;
+            h2 += h1;
+
+            byte[] bytes = new byte[CHUNK_SIZE];
+            putLongLittleEndian(bytes, 0, h1);
+            putLongLittleEndian(bytes, 8, h2);
+            return HashCode.fromBytesNoCopy(bytes);
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private static long getLongLittleEndian(byte[] bytes, int off) {
+            return (bytes[off] & 0xffL)
+                | (bytes[off + 1] & 0xffL) << 8
+                | (bytes[off + 2] & 0xffL) << 16
+                | (bytes[off + 3] & 0xffL) << 24
+                | (bytes[off + 4] & 0xffL) << 32
+                | (bytes[off + 5] & 0xffL) << 40
+                | (bytes[off + 6] & 0xffL) << 48
+                | (bytes[off + 7] & 0xffL) << 56;
+        }
+
+        private static void putLongLittleEndian(byte[] bytes, int off, long value) {
+            for (int i = 0; i < 8; i++) {
+                bytes[off + i] = (byte) (value >>> (i * 8));
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 public interface StreamHasher {
     /**
@@ -30,4 +31,11 @@ public interface StreamHasher {
      * The method will not close either stream.
      */
     HashCode hashCopy(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the hash of the content of the given file channel, which is the same as the hash returned by {@link #hash(InputStream)} for the same content.
+     * The file is memory mapped instead of being read into the heap when the hash function can consume mapped buffers without copying them.
+     * The channel will not be closed by the method.
+     */
+    HashCode hash(FileChannel channel) throws IOException;
 }
@@ -36,4 +36,31 @@ class DefaultStreamHasherTest extends Specification {
         hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
         output.toByteArray() == "hello".bytes
     }
+
+    def "can hash input with another hash function"() {
+        def input = new ByteArrayInputStream("hello".bytes)
+        when:
+        def hash = new DefaultStreamHasher(Hashing.murmur3()).hash(input)
+        then:
+        hash.toString() == "36e44ebde6f0da7dc1a53de4506f3ffc"
+    }
+
+    def "hashes file channel the same as its content stream"() {
+        def file = File.createTempFile("content", ".bin")
+        file.deleteOnExit()
+        def random = new Random(1234)
+        def content = new byte[100000]
+        random.nextBytes(content)
+        file.bytes = content
+        def hasher = new DefaultStreamHasher(hashFunction)
+
+        when:
+        def mappedHash = new RandomAccessFile(file, "r").withCloseable { hasher.hash(it.channel) }
+
+        then:
+        mappedHash == hasher.hash(new ByteArrayInputStream(content))
+
+        where:
+        hashFunction << [Hashing.md5(), Hashing.murmur3()]
+    }
 }
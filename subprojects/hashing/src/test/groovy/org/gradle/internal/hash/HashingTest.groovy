@@ -18,6 +18,8 @@ package org.gradle.internal.hash
 
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+
 import static java.lang.Thread.currentThread
 import static java.util.concurrent.CompletableFuture.supplyAsync
 import static java.util.concurrent.Executors.newFixedThreadPool
@@ -76,6 +78,52 @@ class HashingTest extends Specification {
         hash == hash3
     }
 
+    def 'murmur3 produces reference hashes'() {
+        expect:
+        Hashing.murmur3().hashString(input).toString() == hash
+
+        where:
+        input                                         | hash
+        ""                                            | "00000000000000000000000000000000"
+        "hello"                                       | "029bbd41b3a7d8cb191dae486a901e5b"
+        "The quick brown fox jumps over the lazy dog" | "6c1b07bc7bbc4be347939ac4a93c437a"
+    }
+
+    def 'murmur3 hash does not depend on how input is split'() {
+        given:
+        def bytes = ('a'..'z').join().bytes
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+
+        when:
+        hasher.putBytes(bytes, 0, 3)
+        hasher.putByte(bytes[3])
+        hasher.putBytes(bytes, 4, 17)
+        hasher.putBytes(bytes, 21, 5)
+
+        then:
+        hasher.hash() == Hashing.murmur3().hashBytes(bytes)
+    }
+
+    def 'hashes byte buffers the same as byte arrays'() {
+        given:
+        def bytes = ('a'..'z').join().bytes
+        def buffer = ByteBuffer.allocateDirect(bytes.length + 3)
+        buffer.put(bytes).flip()
+        def hasher = hashFunction.newPrimitiveHasher()
+
+        when:
+        hasher.putByte(bytes[0])
+        buffer.position(1)
+        hasher.putBytes(buffer)
+
+        then:
+        !buffer.hasRemaining()
+        hasher.hash() == hashFunction.hashBytes(bytes)
+
+        where:
+        hashFunction << [Hashing.md5(), Hashing.murmur3()]
+    }
+
     def 'hasher can be used from multiple threads'() {
         given:
         def threadRange = 1..100
@@ -26,6 +26,14 @@ public interface AsyncCacheAccess {
      */
     void enqueue(Runnable task);
 
+    /**
+     * Submits an update of the given key of the given cache for execution without waiting for the result.
+     *
+     * Behaves like {@link #enqueue(Runnable)}, except that an update may be skipped when a later update of the same key of the same cache is submitted before it starts, and no other action is submitted in between.
+     * The completion action of a skipped update runs once the update that replaced it has completed.
+     */
+    void enqueueUpdate(Object cache, Object key, Runnable update, Runnable completion);
+
     /**
      * Runs the given action, blocking until the result is available.
      *
@@ -29,4 +29,11 @@ public interface CrossProcessCacheAccess {
      * The lock may be released by any thread.
      */
     Runnable acquireFileLock();
+
+    /**
+     * Returns a stamp identifying the current period during which this process continuously holds the file lock, or 0 when the lock is not currently held.
+     *
+     * <p>This allows in-memory state to be read without acquiring the file lock: the state is consistent with the cache when the same non-zero stamp is returned before and after reading it.</p>
+     */
+    long getLockStamp();
 }
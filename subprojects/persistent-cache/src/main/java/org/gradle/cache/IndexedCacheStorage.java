@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache;
+
+import javax.annotation.Nullable;
+
+/**
+ * The files backing a {@link PersistentIndexedCache}. The storage is opened when it is created, and is only used while holding the lock of its cache.
+ */
+public interface IndexedCacheStorage<K, V> {
+    @Nullable
+    V get(K key);
+
+    void put(K key, V value);
+
+    void remove(K key);
+
+    void close();
+
+    /**
+     * Opens the storage again after it has been closed, keeping any state it holds in memory.
+     *
+     * @return false when the storage cannot be reopened, in which case a new storage is created instead.
+     */
+    default boolean reopen() {
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache;
+
+/**
+ * The way the entries of a {@link PersistentIndexedCache} are stored on disk.
+ */
+public enum IndexedCacheStorageFormat {
+    /**
+     * A B-tree of index blocks pointing to data blocks, which are updated in place.
+     * Suits caches that are read much more often than they are written.
+     */
+    BTREE(".bin"),
+
+    /**
+     * A log that updates are appended to, with the index kept in memory.
+     * Suits caches that are written about as often as they are read.
+     *
+     * <p>The index stays in memory while the lock of the cache is released, and only the entries appended by other processes are read when the lock is acquired again.
+     * Replaced and removed entries take up space in the log until it is compacted. Once most of the log is garbage, each release of the lock copies the live entries from the next 16 MiB,
+     * or the next sixteenth when the log is larger than 256 MiB, to a new log, which replaces the log once all of it has been copied. Opening the cache never compacts the log.</p>
+     */
+    APPEND_ONLY_LOG(".log");
+
+    /**
+     * When set, caches that are frequently written use {@link #APPEND_ONLY_LOG} instead of {@link #BTREE}.
+     */
+    public static final String APPEND_ONLY_LOG_PROPERTY = "org.gradle.unsafe.append-only-log-caches";
+
+    private final String fileExtension;
+
+    IndexedCacheStorageFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Returns the format to use for a cache that is written about as often as it is read.
+     */
+    public static IndexedCacheStorageFormat forFrequentlyWrittenCache() {
+        return Boolean.getBoolean(APPEND_ONLY_LOG_PROPERTY) ? APPEND_ONLY_LOG : BTREE;
+    }
+}
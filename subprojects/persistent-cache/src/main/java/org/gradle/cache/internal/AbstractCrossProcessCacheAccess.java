@@ -31,4 +31,12 @@ public abstract class AbstractCrossProcessCacheAccess implements CrossProcessCac
      */
     @Override
     public abstract void close();
+
+    /**
+     * Does not support reading without the lock by default.
+     */
+    @Override
+    public long getLockStamp() {
+        return 0;
+    }
 }
@@ -24,9 +24,14 @@
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.time.CountdownTimer;
 import org.gradle.internal.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -34,9 +39,14 @@
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheAccessWorker.class);
+
     private final BlockingQueue<Runnable> workQueue;
+    private final AtomicLong appliedOperations = new AtomicLong();
+    private final AtomicLong coalescedOperations = new AtomicLong();
     private final String displayName;
     private final CacheAccess cacheAccess;
     private final long batchWindowMillis;
@@ -62,6 +72,11 @@ public void enqueue(Runnable task) {
         addToQueue(task);
     }
 
+    @Override
+    public void enqueueUpdate(Object cache, Object key, Runnable update, Runnable completion) {
+        addToQueue(new CacheUpdate(new UpdateKey(cache, key), update, completion));
+    }
+
     private void addToQueue(Runnable task) {
         if (closed) {
             throw new IllegalStateException("The worker has already been closed. Cannot add more work to queue.");
@@ -177,22 +192,34 @@ private void flushOperations(final Runnable updateOperation) {
                 public void run() {
                     CountdownTimer timer = Time.startCountdownTimer(maximumLockingTimeMillis, TimeUnit.MILLISECONDS);
                     if (updateOperation != null) {
-                        failureHandler.onExecute(updateOperation);
+                        execute(updateOperation);
                     }
-                    Runnable otherOperation;
+                    // Take all the queued operations at once, so that producers blocked on a full queue can continue while the batch is applied
+                    List<Runnable> batch = new ArrayList<Runnable>();
                     try {
-                        while ((otherOperation = workQueue.poll(batchWindowMillis, TimeUnit.MILLISECONDS)) != null) {
-                            failureHandler.onExecute(otherOperation);
-                            final Class<? extends Runnable> runnableClass = otherOperation.getClass();
-                            if (runnableClass == FlushOperationsCommand.class) {
-                                flushOperations.add((FlushOperationsCommand) otherOperation);
+                        while (true) {
+                            if (workQueue.drainTo(batch) == 0) {
+                                Runnable otherOperation = workQueue.poll(batchWindowMillis, TimeUnit.MILLISECONDS);
+                                if (otherOperation == null) {
+                                    break;
+                                }
+                                batch.add(otherOperation);
                             }
-                            if (runnableClass == ShutdownOperationsCommand.class) {
-                                stopSeen = true;
+                            boolean endOfBatch = timer.hasExpired();
+                            for (Runnable otherOperation : coalesceUpdates(batch)) {
+                                execute(otherOperation);
+                                final Class<? extends Runnable> runnableClass = otherOperation.getClass();
+                                if (runnableClass == FlushOperationsCommand.class) {
+                                    flushOperations.add((FlushOperationsCommand) otherOperation);
+                                    endOfBatch = true;
+                                }
+                                if (runnableClass == ShutdownOperationsCommand.class) {
+                                    stopSeen = true;
+                                    endOfBatch = true;
+                                }
                             }
-                            if (runnableClass == ShutdownOperationsCommand.class
-                                    || runnableClass == FlushOperationsCommand.class
-                                    || timer.hasExpired()) {
+                            batch.clear();
+                            if (endOfBatch || timer.hasExpired()) {
                                 break;
                             }
                         }
@@ -208,6 +235,50 @@ public void run() {
         }
     }
 
+    /**
+     * Drops the updates that are followed by another update of the same key, with no other operation in between. The completions of the dropped updates run with the update that replaced them.
+     */
+    private List<Runnable> coalesceUpdates(List<Runnable> operations) {
+        List<Runnable> result = new ArrayList<Runnable>(operations.size());
+        Map<UpdateKey, CacheUpdate> laterUpdates = new HashMap<UpdateKey, CacheUpdate>();
+        // Walk backwards, so that the last update of each key is seen first
+        for (int i = operations.size() - 1; i >= 0; i--) {
+            Runnable operation = operations.get(i);
+            if (operation instanceof CacheUpdate) {
+                CacheUpdate update = (CacheUpdate) operation;
+                CacheUpdate laterUpdate = laterUpdates.get(update.key);
+                if (laterUpdate != null) {
+                    laterUpdate.supersede(update);
+                    coalescedOperations.incrementAndGet();
+                    continue;
+                }
+                laterUpdates.put(update.key, update);
+            } else {
+                // Reads and commands must see every update queued before them
+                laterUpdates.clear();
+            }
+            result.add(operation);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void execute(Runnable operation) {
+        failureHandler.onExecute(operation);
+        Class<? extends Runnable> runnableClass = operation.getClass();
+        if (runnableClass != FlushOperationsCommand.class && runnableClass != ShutdownOperationsCommand.class) {
+            appliedOperations.incrementAndGet();
+        }
+    }
+
+    long getAppliedOperationsCount() {
+        return appliedOperations.get();
+    }
+
+    long getCoalescedOperationsCount() {
+        return coalescedOperations.get();
+    }
+
     @Override
     public synchronized void stop() {
         if (!closed && !workerCompleted) {
@@ -222,6 +293,7 @@ public synchronized void stop() {
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+            LOGGER.debug("Applied {} operations and coalesced {} updates for {}.", appliedOperations.get(), coalescedOperations.get(), displayName);
         }
         rethrowFailure();
     }
@@ -232,4 +304,58 @@ public void run() {
             // do nothing
         }
     }
+
+    private static class UpdateKey {
+        private final Object cache;
+        private final Object key;
+
+        UpdateKey(Object cache, Object key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            UpdateKey other = (UpdateKey) o;
+            return cache == other.cache && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(cache) + key.hashCode();
+        }
+    }
+
+    private static class CacheUpdate implements Runnable {
+        private final UpdateKey key;
+        private final Runnable update;
+        private final List<Runnable> completions = new ArrayList<Runnable>(1);
+
+        CacheUpdate(UpdateKey key, Runnable update, Runnable completion) {
+            this.key = key;
+            this.update = update;
+            this.completions.add(completion);
+        }
+
+        void supersede(CacheUpdate earlierUpdate) {
+            completions.addAll(0, earlierUpdate.completions);
+        }
+
+        @Override
+        public void run() {
+            try {
+                update.run();
+            } finally {
+                for (Runnable completion : completions) {
+                    completion.run();
+                }
+            }
+        }
+    }
 }
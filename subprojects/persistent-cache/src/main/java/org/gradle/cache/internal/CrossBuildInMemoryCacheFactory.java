@@ -16,6 +16,8 @@
 
 package org.gradle.cache.internal;
 
+import com.google.common.cache.Weigher;
+
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -39,6 +41,15 @@ public interface CrossBuildInMemoryCacheFactory {
      */
     <K, V> CrossBuildInMemoryCache<K, V> newCache();
 
+    /**
+     * Creates a new cache instance like {@link #newCache()}, which in addition discards values once their total weight, as calculated by the given weigher, exceeds the given maximum.
+     *
+     * <p>Values that have not been used in the current build session are discarded first, least recently used first. Values used in the current build session are discarded only when the remaining values still exceed the maximum.
+     *
+     * <p>Note: this should be used to create _only_ global scoped instances.
+     */
+    <K, V> CrossBuildInMemoryCache<K, V> newBoundedCache(String displayName, Weigher<? super K, ? super V> weigher, long maxWeight);
+
     /**
      * Creates a new cache instance whose keys are Class instances. Keys are referenced using strong or weak references, values by strong or soft references depending on their usage.
      * This allows the classes to be collected.
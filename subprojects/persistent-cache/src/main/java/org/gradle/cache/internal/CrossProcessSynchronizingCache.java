@@ -26,6 +26,8 @@
 
 /**
  * Applies cross-process file locking to a backing cache, to ensure that any in-memory and on file state is kept in sync while this process is read from or writing to the cache.
+ *
+ * Entries held in memory are served without acquiring the lock while this process holds the file lock, see {@link CrossProcessCacheAccess#getLockStamp()}.
  */
 public class CrossProcessSynchronizingCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
     private final CrossProcessCacheAccess cacheAccess;
@@ -44,6 +46,10 @@ public String toString() {
     @Nullable
     @Override
     public V get(final K key) {
+        V resident = getIfResident(key);
+        if (resident != null) {
+            return resident;
+        }
         return cacheAccess.withFileLock(new Factory<V>() {
             @Override
             public V create() {
@@ -54,10 +60,28 @@ public V create() {
 
     @Override
     public V get(final K key, final Transformer<? extends V, ? super K> producer) {
+        V resident = getIfResident(key);
+        if (resident != null) {
+            return resident;
+        }
         Runnable runnable = cacheAccess.acquireFileLock();
         return target.get(key, producer, runnable);
     }
 
+    @Nullable
+    private V getIfResident(K key) {
+        long stamp = cacheAccess.getLockStamp();
+        if (stamp == 0) {
+            return null;
+        }
+        V value = target.getIfResident(key);
+        if (value == null || cacheAccess.getLockStamp() != stamp) {
+            // The lock was released while reading, so the value may be out of date
+            return null;
+        }
+        return value;
+    }
+
     @Override
     public void put(K key, V value) {
         Runnable runnable = cacheAccess.acquireFileLock();
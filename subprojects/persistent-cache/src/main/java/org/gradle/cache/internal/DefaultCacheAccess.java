@@ -25,10 +25,13 @@
 import org.gradle.cache.FileAccess;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCacheStorage;
+import org.gradle.cache.IndexedCacheStorageFormat;
 import org.gradle.cache.LockOptions;
 import org.gradle.cache.LockTimeoutException;
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.appendlog.AppendOnlyLogPersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.internal.Cast;
@@ -283,12 +286,12 @@ public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final Persis
         IndexedCacheEntry<K, V> entry = Cast.uncheckedCast(caches.get(parameters.getCacheName()));
         try {
             if (entry == null) {
-                final File cacheFile = new File(baseDir, parameters.getCacheName() + ".bin");
+                final File cacheFile = new File(baseDir, parameters.getCacheName() + parameters.getStorageFormat().getFileExtension());
                 LOG.debug("Creating new cache for {}, path {}, access {}", parameters.getCacheName(), cacheFile, this);
-                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<BTreePersistentIndexedCache<K, V>>() {
+                Factory<IndexedCacheStorage<K, V>> indexedCacheFactory = new Factory<IndexedCacheStorage<K, V>>() {
                     @Override
-                    public BTreePersistentIndexedCache<K, V> create() {
-                        return doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                    public IndexedCacheStorage<K, V> create() {
+                        return doCreateCache(cacheFile, parameters.getStorageFormat(), parameters.getKeySerializer(), parameters.getValueSerializer());
                     }
                 };
 
@@ -314,8 +317,15 @@ public BTreePersistentIndexedCache<K, V> create() {
         }
     }
 
-    <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+    <K, V> IndexedCacheStorage<K, V> doCreateCache(File cacheFile, IndexedCacheStorageFormat storageFormat, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        switch (storageFormat) {
+            case APPEND_ONLY_LOG:
+                return new AppendOnlyLogPersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+            case BTREE:
+                return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+            default:
+                throw new IllegalArgumentException("Unknown storage format " + storageFormat);
+        }
     }
 
     /**
@@ -449,6 +459,7 @@ void assertCompatibleCacheParameters(PersistentIndexedCacheParameters<K, V> para
             checkCompatibleKeySerializer(faultMessages, parameters.getKeySerializer());
             checkCompatibleValueSerializer(faultMessages, parameters.getValueSerializer());
             checkCompatibleCacheDecorator(faultMessages, parameters.getCacheDecorator());
+            checkCompatibleStorageFormat(faultMessages, parameters.getStorageFormat());
 
             if (!faultMessages.isEmpty()) {
                 String lineSeparator = SystemProperties.getInstance().getLineSeparator();
@@ -491,6 +502,14 @@ private void checkCompatibleCacheDecorator(Collection<String> faultMessages, Cac
                         cacheDecorator, parameters.getCacheDecorator()));
             }
         }
+
+        private void checkCompatibleStorageFormat(Collection<String> faultMessages, IndexedCacheStorageFormat storageFormat) {
+            if (storageFormat != parameters.getStorageFormat()) {
+                faultMessages.add(
+                    String.format(" * Requested storage format (%s) doesn't match current storage format (%s)",
+                        storageFormat, parameters.getStorageFormat()));
+            }
+        }
     }
 
     @VisibleForTesting
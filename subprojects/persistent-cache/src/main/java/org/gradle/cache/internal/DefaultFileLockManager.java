@@ -440,19 +440,29 @@ long backoffPeriodFor(int iteration) {
         }
     }
 
+    /**
+     * Signals that a lock has been released by its owner. A trigger is remembered until it has been consumed by a waiter,
+     * so that a release that happens while the waiting thread is busy trying to acquire the lock still wakes it up on its next wait, instead of after a full back off period.
+     */
     @VisibleForTesting
     static class AwaitableFileLockReleasedSignal implements FileLockReleasedSignal {
 
         private final Lock lock = new ReentrantLock();
         private final Condition condition = lock.newCondition();
         private int waiting;
+        private boolean triggered;
 
         public boolean await(long millis) throws InterruptedException {
             lock.lock();
             try {
                 waiting++;
-                return condition.await(millis, MILLISECONDS);
+                long remainingNanos = MILLISECONDS.toNanos(millis);
+                while (!triggered && remainingNanos > 0) {
+                    remainingNanos = condition.awaitNanos(remainingNanos);
+                }
+                return triggered;
             } finally {
+                triggered = false;
                 waiting--;
                 lock.unlock();
             }
@@ -462,6 +472,7 @@ public boolean await(long millis) throws InterruptedException {
         public void trigger() {
             lock.lock();
             try {
+                triggered = true;
                 if (waiting > 0) {
                     condition.signalAll();
                 }
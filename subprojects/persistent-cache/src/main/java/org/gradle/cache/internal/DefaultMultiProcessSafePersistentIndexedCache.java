@@ -19,16 +19,18 @@
 import org.gradle.cache.FileAccess;
 import org.gradle.cache.FileIntegrityViolationException;
 import org.gradle.cache.FileLock;
+import org.gradle.cache.IndexedCacheStorage;
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
-import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.internal.Factory;
 
 public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
     private final FileAccess fileAccess;
-    private final Factory<BTreePersistentIndexedCache<K, V>> factory;
-    private BTreePersistentIndexedCache<K, V> cache;
+    private final Factory<IndexedCacheStorage<K, V>> factory;
+    private IndexedCacheStorage<K, V> cache;
+    // The storage closed when the lock was last released, which may be reopened when the lock is acquired again
+    private IndexedCacheStorage<K, V> closedCache;
 
-    public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
+    public DefaultMultiProcessSafePersistentIndexedCache(Factory<IndexedCacheStorage<K, V>> factory, FileAccess fileAccess) {
         this.factory = factory;
         this.fileAccess = fileAccess;
     }
@@ -40,7 +42,7 @@ public String toString() {
 
     @Override
     public V get(final K key) {
-        final BTreePersistentIndexedCache<K, V> cache = getCache();
+        final IndexedCacheStorage<K, V> cache = getCache();
         try {
             return fileAccess.readFile(new Factory<V>() {
                 @Override
@@ -65,7 +67,7 @@ public V get(K key, Transformer<? extends V, ? super K> producer) {
 
     @Override
     public void put(final K key, final V value) {
-        final BTreePersistentIndexedCache<K, V> cache = getCache();
+        final IndexedCacheStorage<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
         fileAccess.writeFile(new Runnable() {
@@ -78,7 +80,7 @@ public void run() {
 
     @Override
     public void remove(final K key) {
-        final BTreePersistentIndexedCache<K, V> cache = getCache();
+        final IndexedCacheStorage<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
         fileAccess.writeFile(new Runnable() {
@@ -103,6 +105,7 @@ public void run() {
                         cache.close();
                     }
                 });
+                closedCache = cache;
             } finally {
                 cache = null;
             }
@@ -113,14 +116,19 @@ public void run() {
     public void beforeLockRelease(FileLock.State currentCacheState) {
     }
 
-    private BTreePersistentIndexedCache<K, V> getCache() {
+    private IndexedCacheStorage<K, V> getCache() {
         if (cache == null) {
             // Use writeFile because the cache can internally recover from datafile
             // corruption, so we don't care at this level if it's corrupt
             fileAccess.writeFile(new Runnable() {
                 @Override
                 public void run() {
-                    cache = factory.create();
+                    if (closedCache != null && closedCache.reopen()) {
+                        cache = closedCache;
+                    } else {
+                        cache = factory.create();
+                    }
+                    closedCache = null;
                 }
             });
         }
@@ -24,6 +24,7 @@
 import org.gradle.cache.CrossProcessCacheAccess;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
+import org.gradle.internal.Cast;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,22 +35,34 @@
  * The in-memory cache is invalidated when the backing cache is changed by another process.
  *
  * Also decorates each cache so that updates to the backing cache are made asynchronously.
+ *
+ * Caches with string keys and fixed size values can instead keep their entries off-heap, see {@link #offHeapDecorator(int, OffHeapValueCodec)}.
  */
 public class InMemoryCacheDecoratorFactory {
     private final static Logger LOG = LoggerFactory.getLogger(InMemoryCacheDecoratorFactory.class);
     private final boolean longLivingProcess;
     private final HeapProportionalCacheSizer cacheSizer = new HeapProportionalCacheSizer();
     private final CrossBuildInMemoryCache<String, CacheDetails> caches;
+    private final CrossBuildInMemoryCache<String, OffHeapStoreDetails> offHeapStores;
 
     public InMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
         this.longLivingProcess = longLivingProcess;
         caches = cacheFactory.newCache();
+        offHeapStores = cacheFactory.newCache();
     }
 
     public CacheDecorator decorator(final int maxEntriesToKeepInMemory, final boolean cacheInMemoryForShortLivedProcesses) {
         return new InMemoryCacheDecorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
     }
 
+    /**
+     * Creates a decorator that keeps up to the given number of entries outside of the Java heap, packed using the given codec.
+     * The decorated cache must use {@link String} keys. Entries are kept for short lived processes, too.
+     */
+    public CacheDecorator offHeapDecorator(final int maxEntriesToKeepOffHeap, final OffHeapValueCodec<?> codec) {
+        return new OffHeapCacheDecorator(maxEntriesToKeepOffHeap, codec);
+    }
+
     private <K, V> MultiProcessSafeAsyncPersistentIndexedCache<K, V> applyInMemoryCaching(String cacheId, MultiProcessSafeAsyncPersistentIndexedCache<K, V> backingCache, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
         if (!longLivingProcess && !cacheInMemoryForShortLivedProcesses) {
             // Short lived process, don't cache in memory
@@ -77,6 +90,20 @@ public CacheDetails transform(String cacheId) {
         return cacheDetails;
     }
 
+    private <V> OffHeapStoreDetails getOffHeapStore(final String cacheId, final int maxEntries, final OffHeapValueCodec<V> codec) {
+        OffHeapStoreDetails storeDetails = offHeapStores.get(cacheId, new Transformer<OffHeapStoreDetails, String>() {
+            @Override
+            public OffHeapStoreDetails transform(String cacheId) {
+                LOG.debug("Creating off-heap store for cache {} (max size: {})", cacheId, maxEntries);
+                return new OffHeapStoreDetails(maxEntries, codec, new OffHeapEntryStore<V>(cacheId, codec, maxEntries), new AtomicReference<FileLock.State>(null));
+            }
+        });
+        if (storeDetails.maxEntries != maxEntries || !storeDetails.codec.equals(codec)) {
+            throw new IllegalStateException("Mismatched off-heap store for cache " + cacheId + ", expected size: " + maxEntries + ", found: " + storeDetails.maxEntries);
+        }
+        return storeDetails;
+    }
+
     private Cache<Object, Object> createInMemoryCache(String cacheId, int maxSize) {
         LoggingEvictionListener evictionListener = new LoggingEvictionListener(cacheId, maxSize);
         final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().removalListener(evictionListener);
@@ -119,6 +146,57 @@ public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(String cache
         }
     }
 
+    private class OffHeapCacheDecorator implements CacheDecorator {
+        private final int maxEntriesToKeepOffHeap;
+        private final OffHeapValueCodec<?> codec;
+
+        OffHeapCacheDecorator(int maxEntriesToKeepOffHeap, OffHeapValueCodec<?> codec) {
+            this.maxEntriesToKeepOffHeap = maxEntriesToKeepOffHeap;
+            this.codec = codec;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            OffHeapCacheDecorator other = (OffHeapCacheDecorator) obj;
+            return maxEntriesToKeepOffHeap == other.maxEntriesToKeepOffHeap && codec.equals(other.codec);
+        }
+
+        @Override
+        public int hashCode() {
+            return maxEntriesToKeepOffHeap ^ codec.hashCode();
+        }
+
+        @Override
+        public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafePersistentIndexedCache<K, V> persistentCache, CrossProcessCacheAccess crossProcessCacheAccess, AsyncCacheAccess asyncCacheAccess) {
+            MultiProcessSafeAsyncPersistentIndexedCache<String, V> asyncCache = Cast.uncheckedCast(new AsyncCacheAccessDecoratedCache<K, V>(asyncCacheAccess, persistentCache));
+            OffHeapValueCodec<V> valueCodec = Cast.uncheckedCast(codec);
+            OffHeapStoreDetails storeDetails = getOffHeapStore(cacheId, maxEntriesToKeepOffHeap, valueCodec);
+            OffHeapEntryStore<V> store = Cast.uncheckedCast(storeDetails.store);
+            MultiProcessSafeAsyncPersistentIndexedCache<K, V> offHeapCache = Cast.uncheckedCast(new OffHeapDecoratedCache<V>(asyncCache, store, cacheId, storeDetails.lockState));
+            return new CrossProcessSynchronizingCache<K, V>(offHeapCache, crossProcessCacheAccess);
+        }
+    }
+
+    private static class OffHeapStoreDetails {
+        private final int maxEntries;
+        private final OffHeapValueCodec<?> codec;
+        private final OffHeapEntryStore<?> store;
+        private final AtomicReference<FileLock.State> lockState;
+
+        OffHeapStoreDetails(int maxEntries, OffHeapValueCodec<?> codec, OffHeapEntryStore<?> store, AtomicReference<FileLock.State> lockState) {
+            this.maxEntries = maxEntries;
+            this.codec = codec;
+            this.store = store;
+            this.lockState = lockState;
+        }
+    }
+
     private static class CacheDetails {
         private final String cacheId;
         private final int maxEntries;
@@ -73,6 +73,15 @@ public Object call() throws Exception {
         }
     }
 
+    @Override
+    public V getIfResident(K key) {
+        Object value = inMemoryCache.getIfPresent(key);
+        if (value == null || value == NULL) {
+            return null;
+        }
+        return Cast.uncheckedCast(value);
+    }
+
     @Override
     public V get(final K key, final Transformer<? extends V, ? super K> producer, final Runnable completion) {
         final AtomicReference<Runnable> completionRef = new AtomicReference<Runnable>(completion);
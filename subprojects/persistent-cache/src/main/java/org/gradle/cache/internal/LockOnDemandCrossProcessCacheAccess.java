@@ -44,6 +44,9 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
     private FileLock fileLock;
     private CacheInitializationAction initAction;
     private FileLockReleasedSignal lockReleaseSignal;
+    private long lockGeneration;
+    // Non-zero while the file lock is held and the in-memory state is up-to-date
+    private volatile long lockStamp;
 
     /**
      * Actions are notified when lock is opened or closed. Actions are called while holding state lock, so that no other threads are working with cache while these are running.
@@ -119,6 +122,7 @@ public void run() {
                     fileLock = null;
                     throw UncheckedException.throwAsUncheckedException(e);
                 }
+                lockStamp = ++lockGeneration;
             }
             lockCount++;
         } finally {
@@ -148,6 +152,7 @@ private void releaseLockIfHeld() {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Releasing file lock for {}", cacheDisplayName);
         }
+        lockStamp = 0;
         try {
             onClose.execute(fileLock);
         } finally {
@@ -163,6 +168,11 @@ private void releaseLockIfHeld() {
         }
     }
 
+    @Override
+    public long getLockStamp() {
+        return lockStamp;
+    }
+
     @Override
     public Runnable acquireFileLock() {
         incrementLockCount();
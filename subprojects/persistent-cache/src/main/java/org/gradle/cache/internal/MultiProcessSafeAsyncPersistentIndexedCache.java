@@ -30,6 +30,14 @@
     @Nullable
     V get(K key);
 
+    /**
+     * Fetches the given entry if it is held in memory, without accessing the backing cache. This method does not block.
+     *
+     * @return the value, or null when the entry is not held in memory or has no value.
+     */
+    @Nullable
+    V getIfResident(K key);
+
     /**
      * Fetches the given entry, producing if necessary, blocking until the result is available. This method may or may not block until any updates have completed and will invoke the given completion action when the operation is complete.
      */
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import com.google.common.util.concurrent.Runnables;
+import org.gradle.api.Transformer;
+import org.gradle.cache.FileLock;
+import org.gradle.internal.Cast;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Like {@link InMemoryDecoratedCache}, but keeps the entries in an {@link OffHeapEntryStore}, so that a large number of entries does not create a large number of objects on the heap.
+ */
+class OffHeapDecoratedCache<V> implements MultiProcessSafeAsyncPersistentIndexedCache<String, V> {
+    private final static Logger LOG = LoggerFactory.getLogger(OffHeapDecoratedCache.class);
+    private final MultiProcessSafeAsyncPersistentIndexedCache<String, V> delegate;
+    private final OffHeapEntryStore<V> store;
+    private final String cacheId;
+    private final AtomicReference<FileLock.State> fileLockStateReference;
+
+    public OffHeapDecoratedCache(MultiProcessSafeAsyncPersistentIndexedCache<String, V> delegate, OffHeapEntryStore<V> store, String cacheId, AtomicReference<FileLock.State> fileLockStateReference) {
+        this.delegate = delegate;
+        this.store = store;
+        this.cacheId = cacheId;
+        this.fileLockStateReference = fileLockStateReference;
+    }
+
+    @Override
+    public String toString() {
+        return "{off-heap-cache cache: " + delegate + "}";
+    }
+
+    @Override
+    public V get(String key) {
+        Object value = store.get(key);
+        if (value == OffHeapEntryStore.ABSENT) {
+            return null;
+        }
+        if (value != OffHeapEntryStore.UNKNOWN) {
+            return Cast.uncheckedCast(value);
+        }
+        V out = delegate.get(key);
+        if (out == null) {
+            store.putAbsent(key);
+        } else {
+            // Do not replace a value that was put while reading from the backing cache
+            store.putIfUnknown(key, out);
+        }
+        return out;
+    }
+
+    @Override
+    public V getIfResident(String key) {
+        Object value = store.get(key);
+        if (value == OffHeapEntryStore.UNKNOWN || value == OffHeapEntryStore.ABSENT) {
+            return null;
+        }
+        return Cast.uncheckedCast(value);
+    }
+
+    @Override
+    public V get(String key, Transformer<? extends V, ? super String> producer, Runnable completion) {
+        Runnable completionToRun = completion;
+        try {
+            Object value = store.get(key);
+            if (value == OffHeapEntryStore.UNKNOWN) {
+                V out = delegate.get(key);
+                if (out != null) {
+                    store.putIfUnknown(key, out);
+                    return out;
+                }
+            } else if (value != OffHeapEntryStore.ABSENT) {
+                return Cast.uncheckedCast(value);
+            }
+            V produced = producer.transform(key);
+            store.put(key, produced);
+            delegate.putLater(key, produced, completion);
+            completionToRun = Runnables.doNothing();
+            return produced;
+        } finally {
+            completionToRun.run();
+        }
+    }
+
+    @Override
+    public void putLater(String key, V value, Runnable completion) {
+        store.put(key, value);
+        delegate.putLater(key, value, completion);
+    }
+
+    @Override
+    public void removeLater(String key, Runnable completion) {
+        store.putAbsent(key);
+        delegate.removeLater(key, completion);
+    }
+
+    @Override
+    public void afterLockAcquire(FileLock.State currentCacheState) {
+        boolean outOfDate = false;
+        FileLock.State previousState = fileLockStateReference.get();
+        if (previousState == null) {
+            outOfDate = true;
+        } else if (currentCacheState.hasBeenUpdatedSince(previousState)) {
+            LOG.info("Invalidating off-heap cache of {}", cacheId);
+            outOfDate = true;
+        }
+        if (outOfDate) {
+            store.clear();
+        }
+        delegate.afterLockAcquire(currentCacheState);
+    }
+
+    @Override
+    public void finishWork() {
+        delegate.finishWork();
+    }
+
+    @Override
+    public void beforeLockRelease(FileLock.State currentCacheState) {
+        fileLockStateReference.set(currentCacheState);
+        delegate.beforeLockRelease(currentCacheState);
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.internal.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hash table of string keyed entries, stored in direct buffers outside of the Java heap.
+ *
+ * <p>Keys are not stored. Instead, each entry is identified by the MD5 hash of its key, so that different keys are practically never mistaken for each other.
+ * Values are packed into fixed size records using an {@link OffHeapValueCodec}.
+ * The store can also remember that a key has no value, so that lookups of missing entries do not need to go to the backing cache again.</p>
+ *
+ * <p>The table is split into segments which are locked independently and use open addressing with linear probing.
+ * When a segment reaches its share of the maximum number of entries, it is cleared.</p>
+ *
+ * <p>The segments are direct buffers, which count against the limit set by {@code -XX:MaxDirectMemorySize} rather than against the heap.
+ * As segments are kept at most 3/4 full and grow in powers of two, a full store takes up to about twice the size of its entries.
+ * For example, 4 million entries of 56 bytes take up to 448 MiB.</p>
+ */
+class OffHeapEntryStore<V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapEntryStore.class);
+
+    /**
+     * Returned by {@link #get(String)} when the store does not know about the key.
+     */
+    static final Object UNKNOWN = new Object();
+    /**
+     * Returned by {@link #get(String)} when the key is known to have no value.
+     */
+    static final Object ABSENT = new Object();
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+    private static final int INITIAL_SEGMENT_CAPACITY = 256;
+
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+    private static final byte MISSING = 2;
+
+    private static final int STATE_OFFSET = 16;
+    private static final int VALUE_OFFSET = 17;
+
+    private final String cacheId;
+    private final OffHeapValueCodec<V> codec;
+    private final int entrySize;
+    private final int maxEntriesPerSegment;
+    private final int maxSegmentCapacity;
+    private final List<Segment> segments = new ArrayList<Segment>(SEGMENT_COUNT);
+
+    OffHeapEntryStore(String cacheId, OffHeapValueCodec<V> codec, int maxEntries) {
+        this.cacheId = cacheId;
+        this.codec = codec;
+        // Keep entries aligned, so that the hashes can be read efficiently
+        this.entrySize = (VALUE_OFFSET + codec.getValueSize() + 7) & ~7;
+        this.maxEntriesPerSegment = Math.max(1, maxEntries / SEGMENT_COUNT);
+        int capacity = INITIAL_SEGMENT_CAPACITY;
+        while (!canHold(capacity, maxEntriesPerSegment)) {
+            capacity <<= 1;
+        }
+        this.maxSegmentCapacity = capacity;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments.add(new Segment());
+        }
+    }
+
+    /**
+     * Returns the value for the given key, or {@link #ABSENT} or {@link #UNKNOWN}.
+     */
+    Object get(String key) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        return segmentFor(h1).get(h1, h2);
+    }
+
+    void put(String key, V value) {
+        store(key, value, true);
+    }
+
+    /**
+     * Stores the given value, unless the store already knows about the key.
+     */
+    void putIfUnknown(String key, V value) {
+        store(key, value, false);
+    }
+
+    void putAbsent(String key) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        segmentFor(h1).put(h1, h2, null, true);
+    }
+
+    void remove(String key) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        segmentFor(h1).remove(h1, h2);
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private void store(String key, V value, boolean replace) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        segmentFor(h1).put(h1, h2, value, replace);
+    }
+
+    private Segment segmentFor(long h1) {
+        return segments.get((int) (h1 >>> (64 - SEGMENT_BITS)));
+    }
+
+    private static boolean canHold(int capacity, int entries) {
+        // Keep the load factor at 3/4 at most
+        return (long) entries * 4 <= (long) capacity * 3;
+    }
+
+    private static ByteBuffer hash(String key) {
+        return ByteBuffer.wrap(Hashing.md5().hashString(key).toByteArray());
+    }
+
+    private final class Segment {
+        private ByteBuffer table;
+        private int mask;
+        private int size;
+
+        Segment() {
+            allocate(INITIAL_SEGMENT_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            table = ByteBuffer.allocateDirect(capacity * entrySize);
+            mask = capacity - 1;
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized Object get(long h1, long h2) {
+            int offset = find(h1, h2);
+            if (offset < 0) {
+                return UNKNOWN;
+            }
+            if (table.get(offset + STATE_OFFSET) == MISSING) {
+                return ABSENT;
+            }
+            return codec.read(table, offset + VALUE_OFFSET);
+        }
+
+        synchronized void put(long h1, long h2, V value, boolean replace) {
+            int offset = find(h1, h2);
+            if (offset >= 0) {
+                if (!replace) {
+                    return;
+                }
+            } else {
+                if (size >= maxEntriesPerSegment) {
+                    LOGGER.debug("Off-heap store for cache {} is full, discarding {} entries.", cacheId, size);
+                    clear();
+                } else if (!canHold(mask + 1, size + 1)) {
+                    resize((mask + 1) << 1);
+                }
+                offset = insertionPoint(h1);
+                table.putLong(offset, h1);
+                table.putLong(offset + 8, h2);
+                size++;
+            }
+            if (value == null) {
+                table.put(offset + STATE_OFFSET, MISSING);
+            } else if (codec.write(value, table, offset + VALUE_OFFSET)) {
+                table.put(offset + STATE_OFFSET, PRESENT);
+            } else {
+                // Forget about the key, so that the value is read from the backing cache again
+                removeAt(offset / entrySize);
+            }
+        }
+
+        synchronized void remove(long h1, long h2) {
+            int offset = find(h1, h2);
+            if (offset >= 0) {
+                removeAt(offset / entrySize);
+            }
+        }
+
+        synchronized void clear() {
+            if (mask + 1 == INITIAL_SEGMENT_CAPACITY) {
+                for (int slot = 0; slot <= mask; slot++) {
+                    table.put(slot * entrySize + STATE_OFFSET, EMPTY);
+                }
+                size = 0;
+            } else {
+                allocate(INITIAL_SEGMENT_CAPACITY);
+            }
+        }
+
+        /**
+         * Returns the offset of the entry with the given hash, or -1 when there is no such entry.
+         */
+        private int find(long h1, long h2) {
+            int slot = (int) h1 & mask;
+            while (true) {
+                int offset = slot * entrySize;
+                if (table.get(offset + STATE_OFFSET) == EMPTY) {
+                    return -1;
+                }
+                if (table.getLong(offset) == h1 && table.getLong(offset + 8) == h2) {
+                    return offset;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private int insertionPoint(long h1) {
+            int slot = (int) h1 & mask;
+            while (table.get(slot * entrySize + STATE_OFFSET) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            return slot * entrySize;
+        }
+
+        /**
+         * Removes the entry in the given slot, moving later entries of the same probe sequence back so that no tombstones are required.
+         */
+        private void removeAt(int slot) {
+            int free = slot;
+            int current = slot;
+            while (true) {
+                current = (current + 1) & mask;
+                int offset = current * entrySize;
+                if (table.get(offset + STATE_OFFSET) == EMPTY) {
+                    break;
+                }
+                int home = (int) table.getLong(offset) & mask;
+                // Move the entry when its home slot does not lie cyclically within (free, current]
+                boolean stays = free <= current ? (home > free && home <= current) : (home > free || home <= current);
+                if (!stays) {
+                    copy(offset, free * entrySize);
+                    free = current;
+                }
+            }
+            table.put(free * entrySize + STATE_OFFSET, EMPTY);
+            size--;
+        }
+
+        private void copy(int from, int to) {
+            for (int i = 0; i < entrySize; i += 8) {
+                table.putLong(to + i, table.getLong(from + i));
+            }
+        }
+
+        private void resize(int capacity) {
+            if (capacity > maxSegmentCapacity) {
+                return;
+            }
+            ByteBuffer oldTable = table;
+            int oldCapacity = mask + 1;
+            allocate(capacity);
+            for (int slot = 0; slot < oldCapacity; slot++) {
+                int from = slot * entrySize;
+                if (oldTable.get(from + STATE_OFFSET) == EMPTY) {
+                    continue;
+                }
+                int to = insertionPoint(oldTable.getLong(from));
+                for (int i = 0; i < entrySize; i += 8) {
+                    table.putLong(to + i, oldTable.getLong(from + i));
+                }
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs the values of a cache into fixed size records, so that they can be kept outside of the Java heap.
+ *
+ * <p>Implementations should implement {@link Object#equals(Object)} and {@link Object#hashCode()}, as these are used to determine whether two caches are compatible.</p>
+ */
+public interface OffHeapValueCodec<V> {
+    /**
+     * The number of bytes used to store a value.
+     */
+    int getValueSize();
+
+    /**
+     * Writes the given value into the buffer, starting at the given offset.
+     *
+     * @return false when the value cannot be packed into {@link #getValueSize()} bytes. Such values are not kept off-heap.
+     */
+    boolean write(V value, ByteBuffer buffer, int offset);
+
+    /**
+     * Reads a value previously written using {@link #write(Object, ByteBuffer, int)}.
+     */
+    V read(ByteBuffer buffer, int offset);
+}
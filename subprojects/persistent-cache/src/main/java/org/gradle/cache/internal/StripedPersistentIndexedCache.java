@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.Transformer;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An indexed cache that is partitioned into stripes. Each stripe is an indexed cache in a separate {@link PersistentCache}, so each stripe is protected by its own cross-process file lock.
+ * Processes that use different keys mostly take different locks, rather than all of them contending for a single lock.
+ *
+ * <p>Each operation acquires the lock of the stripe of its key only. Use {@link #useStripe(Object, Factory)} to run several operations for a key while holding the lock of its stripe.</p>
+ *
+ * <p>The stripe of an entry is selected using the serialized form of its key, so that all processes sharing the cache agree on the stripe to use, regardless of how the key implements {@link Object#hashCode()}.
+ * Processes sharing the cache must use the same number of stripes.</p>
+ */
+public class StripedPersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+    private final Serializer<K> keySerializer;
+    private final List<Stripe<K, V>> stripes;
+
+    public StripedPersistentIndexedCache(List<? extends PersistentCache> stripeCaches, PersistentIndexedCacheParameters<K, V> parameters) {
+        if (stripeCaches.isEmpty()) {
+            throw new IllegalArgumentException("At least one stripe is required.");
+        }
+        this.keySerializer = parameters.getKeySerializer();
+        ImmutableList.Builder<Stripe<K, V>> stripes = ImmutableList.builder();
+        for (PersistentCache stripeCache : stripeCaches) {
+            stripes.add(new Stripe<K, V>(stripeCache, stripeCache.createCache(parameters)));
+        }
+        this.stripes = stripes.build();
+    }
+
+    /**
+     * Runs the given action while holding the lock of the stripe of the given key.
+     */
+    public <T> T useStripe(K key, Factory<? extends T> action) {
+        return stripeFor(key).cache.useCache(action);
+    }
+
+    @Nullable
+    @Override
+    public V get(final K key) {
+        final Stripe<K, V> stripe = stripeFor(key);
+        return stripe.cache.useCache(new Factory<V>() {
+            @Override
+            public V create() {
+                return stripe.indexedCache.get(key);
+            }
+        });
+    }
+
+    @Override
+    public V get(final K key, final Transformer<? extends V, ? super K> producer) {
+        final Stripe<K, V> stripe = stripeFor(key);
+        return stripe.cache.useCache(new Factory<V>() {
+            @Override
+            public V create() {
+                return stripe.indexedCache.get(key, producer);
+            }
+        });
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        final Stripe<K, V> stripe = stripeFor(key);
+        stripe.cache.useCache(new Runnable() {
+            @Override
+            public void run() {
+                stripe.indexedCache.put(key, value);
+            }
+        });
+    }
+
+    @Override
+    public void remove(final K key) {
+        final Stripe<K, V> stripe = stripeFor(key);
+        stripe.cache.useCache(new Runnable() {
+            @Override
+            public void run() {
+                stripe.indexedCache.remove(key);
+            }
+        });
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        if (stripes.size() == 1) {
+            return stripes.get(0);
+        }
+        return stripes.get(stripeIndex(serialize(key), stripes.size()));
+    }
+
+    static int stripeIndex(byte[] serializedKey, int stripeCount) {
+        int hash = Arrays.hashCode(serializedKey);
+        // Spread the high bits, as the hash of similar keys differs mostly in the low bits
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % stripeCount;
+    }
+
+    private byte[] serialize(K key) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+            keySerializer.write(encoder, key);
+            encoder.flush();
+            return outputStream.toByteArray();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static class Stripe<K, V> {
+        private final PersistentCache cache;
+        private final PersistentIndexedCache<K, V> indexedCache;
+
+        Stripe(PersistentCache cache, PersistentIndexedCache<K, V> indexedCache) {
+            this.cache = cache;
+            this.indexedCache = indexedCache;
+        }
+    }
+}
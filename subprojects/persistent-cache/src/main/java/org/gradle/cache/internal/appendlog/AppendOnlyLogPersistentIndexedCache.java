@@ -0,0 +1,616 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.appendlog;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.IndexedCacheStorage;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.PrimitiveHasher;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent indexed cache that appends every update to the end of a log file, and keeps the location of the latest entry for each key in memory.
+ *
+ * Entries are never updated in place. The index is saved next to the log once a sizeable part of the log is not covered by the saved index yet, so that opening the cache again only needs to read the entries appended since.
+ * Each entry carries a checksum, so an incomplete or corrupt tail of the log is discarded on open without losing the entries before it.
+ *
+ * Closing the cache only releases the log file and keeps the index in memory. When the cache is {@linkplain #reopen() reopened}, for example when the lock of its cache is acquired again,
+ * only the entries appended by other processes in the meantime are read.
+ *
+ * Once most of the log is made up of replaced or removed entries, the live entries are copied to a new log in steps, one step each time the cache is closed.
+ * Each step scans the next 16 MiB of the log, or the next sixteenth of a larger log, so closing the cache takes a bounded amount of work however large the log has grown.
+ * Once the copy has caught up with the end of the log, the new log replaces it.
+ * The copy is abandoned when another process replaces the log in the meantime.
+ */
+public class AppendOnlyLogPersistentIndexedCache<K, V> implements IndexedCacheStorage<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppendOnlyLogPersistentIndexedCache.class);
+
+    private static final int LOG_MAGIC = 0x474c4f47;
+    private static final int INDEX_MAGIC = 0x47494458;
+    private static final int FORMAT_VERSION = 1;
+    // magic, version, generation
+    private static final int LOG_HEADER_SIZE = 4 + 4 + 8;
+    // body size, checksum of body
+    private static final int ENTRY_HEADER_SIZE = 4 + 4;
+    // type, key size
+    private static final int BODY_HEADER_SIZE = 1 + 4;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int KEY_HASH_SIZE = 16;
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+    // Each compaction step scans at most a sixteenth of the log, but at least this many bytes
+    private static final long MIN_COMPACTION_STEP_SIZE = 16 * 1024 * 1024;
+    private static final int COMPACTION_STEPS = 16;
+    private static final String COMPACTION_FILE_SUFFIX = ".compacting";
+
+    private final File logFile;
+    private final File indexFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final Map<HashCode, Location> index = new HashMap<HashCode, Location>();
+    private RandomAccessFile file;
+    // Identifies the log, so that an index saved for another log is never used
+    private long generation;
+    private long length;
+    private long liveBytes;
+    // The length of the log covered by the saved index
+    private long indexedLength;
+    private final long minCompactionStepSize;
+    @Nullable
+    private Compaction compaction;
+    private boolean compactionFailed;
+
+    public AppendOnlyLogPersistentIndexedCache(File logFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(logFile, keySerializer, valueSerializer, MIN_COMPACTION_STEP_SIZE);
+    }
+
+    @VisibleForTesting
+    AppendOnlyLogPersistentIndexedCache(File logFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, long minCompactionStepSize) {
+        this.minCompactionStepSize = minCompactionStepSize;
+        this.logFile = logFile;
+        this.indexFile = new File(logFile.getParentFile(), logFile.getName() + ".idx");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        try {
+            open();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + logFile.getName() + " (" + logFile + ")";
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        logFile.getParentFile().mkdirs();
+        file = new RandomAccessFile(logFile, "rw");
+        if (!readLogHeader()) {
+            if (file.length() > 0) {
+                LOGGER.warn("{} is corrupt. Discarding.", this);
+            }
+            startNewLog();
+        }
+        indexedLength = loadIndex();
+        readLog(indexedLength);
+    }
+
+    @Override
+    public boolean reopen() {
+        LOGGER.debug("Reopening {}", this);
+        long expectedGeneration = generation;
+        try {
+            file = new RandomAccessFile(logFile, "rw");
+            if (readLogHeader() && generation == expectedGeneration && file.length() >= length) {
+                // Another process can only have appended to the log since it was closed
+                readLog(length);
+                return true;
+            }
+            file.close();
+            abandonCompaction();
+            return false;
+        } catch (IOException e) {
+            LOGGER.debug("Could not reopen {}. Opening it again instead.", this, e);
+            try {
+                file.close();
+            } catch (IOException ignored) {
+                // Ignore
+            }
+            abandonCompaction();
+            return false;
+        }
+    }
+
+    private boolean readLogHeader() throws IOException {
+        if (file.length() < LOG_HEADER_SIZE) {
+            return false;
+        }
+        file.seek(0);
+        if (file.readInt() != LOG_MAGIC || file.readInt() != FORMAT_VERSION) {
+            return false;
+        }
+        generation = file.readLong();
+        return true;
+    }
+
+    private void startNewLog() throws IOException {
+        generation = newGeneration();
+        file.setLength(0);
+        file.seek(0);
+        file.write(logHeader(generation));
+        length = LOG_HEADER_SIZE;
+        index.clear();
+        liveBytes = 0;
+    }
+
+    private static long newGeneration() {
+        return UUID.randomUUID().getMostSignificantBits();
+    }
+
+    private static byte[] logHeader(long generation) {
+        return ByteBuffer.allocate(LOG_HEADER_SIZE).putInt(LOG_MAGIC).putInt(FORMAT_VERSION).putLong(generation).array();
+    }
+
+    /**
+     * Loads the index saved for the current log, if any.
+     *
+     * @return the length of the log covered by the loaded index.
+     */
+    private long loadIndex() {
+        if (!indexFile.isFile()) {
+            return LOG_HEADER_SIZE;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (input.readInt() != INDEX_MAGIC || input.readInt() != FORMAT_VERSION || input.readLong() != generation) {
+                    return LOG_HEADER_SIZE;
+                }
+                long indexedLength = input.readLong();
+                if (indexedLength < LOG_HEADER_SIZE || indexedLength > file.length()) {
+                    return LOG_HEADER_SIZE;
+                }
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    byte[] keyHash = new byte[KEY_HASH_SIZE];
+                    input.readFully(keyHash);
+                    Location location = new Location(input.readLong(), input.readInt());
+                    index.put(HashCode.fromBytes(keyHash), location);
+                    liveBytes += location.size;
+                }
+                return indexedLength;
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not load the index of {}. Reading the whole log instead.", this, e);
+            index.clear();
+            liveBytes = 0;
+            return LOG_HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Adds the entries from the given position to the end of the log to the index, discarding any incomplete or corrupt entries at the end of the log.
+     */
+    private void readLog(long start) throws IOException {
+        long fileLength = file.length();
+        long position = start;
+        file.seek(position);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new RandomAccessFileInputStream(file)));
+        CRC32 checksum = new CRC32();
+        while (position + ENTRY_HEADER_SIZE <= fileLength) {
+            int bodySize = input.readInt();
+            int expectedChecksum = input.readInt();
+            if (bodySize < BODY_HEADER_SIZE || bodySize > fileLength - position - ENTRY_HEADER_SIZE) {
+                break;
+            }
+            byte[] body = new byte[bodySize];
+            input.readFully(body);
+            checksum.reset();
+            checksum.update(body, 0, bodySize);
+            if ((int) checksum.getValue() != expectedChecksum || !replay(body, position)) {
+                break;
+            }
+            position += ENTRY_HEADER_SIZE + bodySize;
+        }
+        if (position < fileLength) {
+            LOGGER.warn("{} has a corrupt entry at offset {}. Discarding the last {} bytes.", this, position, fileLength - position);
+            file.setLength(position);
+        }
+        length = position;
+    }
+
+    private boolean replay(byte[] body, long position) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        byte type = buffer.get();
+        int keySize = buffer.getInt();
+        if (keySize < 0 || keySize > body.length - BODY_HEADER_SIZE) {
+            return false;
+        }
+        HashCode keyHash = hashKey(body, BODY_HEADER_SIZE, keySize);
+        switch (type) {
+            case PUT:
+                addToIndex(keyHash, new Location(position, ENTRY_HEADER_SIZE + body.length));
+                return true;
+            case REMOVE:
+                removeFromIndex(keyHash);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Nullable
+    @Override
+    public V get(K key) {
+        try {
+            byte[] keyBytes = serialize(keySerializer, key);
+            HashCode keyHash = hashKey(keyBytes, 0, keyBytes.length);
+            Location location = index.get(keyHash);
+            if (location == null) {
+                return null;
+            }
+            byte[] entry = readEntry(location);
+            if (entry == null) {
+                LOGGER.warn("{} has a corrupt entry at offset {}. Discarding.", this, location.position);
+                removeFromIndex(keyHash);
+                return null;
+            }
+            int keySize = ByteBuffer.wrap(entry).getInt(ENTRY_HEADER_SIZE + 1);
+            int keyStart = ENTRY_HEADER_SIZE + BODY_HEADER_SIZE;
+            if (!regionEquals(entry, keyStart, keySize, keyBytes)) {
+                // Another key with the same hash
+                return null;
+            }
+            int valueStart = keyStart + keySize;
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(entry, valueStart, entry.length - valueStart)));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        try {
+            byte[] keyBytes = serialize(keySerializer, key);
+            byte[] valueBytes = serialize(valueSerializer, value);
+            Location location = append(PUT, keyBytes, valueBytes);
+            addToIndex(hashKey(keyBytes, 0, keyBytes.length), location);
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        try {
+            byte[] keyBytes = serialize(keySerializer, key);
+            HashCode keyHash = hashKey(keyBytes, 0, keyBytes.length);
+            if (!index.containsKey(keyHash)) {
+                return;
+            }
+            append(REMOVE, keyBytes, new byte[0]);
+            removeFromIndex(keyHash);
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        try {
+            try {
+                compactStep();
+            } finally {
+                file.close();
+            }
+            // Saving the index writes all of it, so only do this once reading the entries not covered by the saved index would take a while
+            if (length - indexedLength > (length - LOG_HEADER_SIZE) / 4) {
+                saveIndex();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Location append(byte type, byte[] keyBytes, byte[] valueBytes) throws IOException {
+        int bodySize = BODY_HEADER_SIZE + keyBytes.length + valueBytes.length;
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + bodySize);
+        entry.putInt(bodySize);
+        entry.putInt(0);
+        entry.put(type);
+        entry.putInt(keyBytes.length);
+        entry.put(keyBytes);
+        entry.put(valueBytes);
+        CRC32 checksum = new CRC32();
+        checksum.update(entry.array(), ENTRY_HEADER_SIZE, bodySize);
+        entry.putInt(4, (int) checksum.getValue());
+
+        Location location = new Location(length, entry.capacity());
+        file.seek(length);
+        file.write(entry.array());
+        length += entry.capacity();
+        return location;
+    }
+
+    /**
+     * Reads the entry at the given location, returning null when it does not match its checksum.
+     */
+    @Nullable
+    private byte[] readEntry(Location location) throws IOException {
+        if (location.position + location.size > length) {
+            return null;
+        }
+        byte[] entry = new byte[location.size];
+        file.seek(location.position);
+        file.readFully(entry);
+        ByteBuffer buffer = ByteBuffer.wrap(entry);
+        int bodySize = buffer.getInt();
+        if (bodySize != location.size - ENTRY_HEADER_SIZE) {
+            return null;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(entry, ENTRY_HEADER_SIZE, bodySize);
+        if ((int) checksum.getValue() != buffer.getInt()) {
+            return null;
+        }
+        return entry;
+    }
+
+    private void addToIndex(HashCode keyHash, Location location) {
+        Location previous = index.put(keyHash, location);
+        if (previous != null) {
+            liveBytes -= previous.size;
+        }
+        liveBytes += location.size;
+    }
+
+    private void removeFromIndex(HashCode keyHash) {
+        Location previous = index.remove(keyHash);
+        if (previous != null) {
+            liveBytes -= previous.size;
+        }
+    }
+
+    /**
+     * Copies the live entries from the next part of the log to the new log, starting a new compaction when most of the log is garbage.
+     * Replaces the log once all of it has been copied. Must be called while the log is open.
+     */
+    private void compactStep() {
+        if (compaction == null) {
+            if (compactionFailed || length < MIN_COMPACTION_SIZE || liveBytes >= (length - LOG_HEADER_SIZE) / 2) {
+                return;
+            }
+            long compactedGeneration = newGeneration();
+            compaction = new Compaction(new File(logFile.getParentFile(), logFile.getName() + "." + Long.toHexString(compactedGeneration) + COMPACTION_FILE_SUFFIX), compactedGeneration);
+            LOGGER.debug("Compacting {}", this);
+        }
+        try {
+            copyLiveEntries(Math.min(length, compaction.cursor + Math.max(minCompactionStepSize, length / COMPACTION_STEPS)));
+            if (compaction.cursor == length) {
+                replaceLog();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not compact {}.", this, e);
+            compactionFailed = true;
+            abandonCompaction();
+        }
+    }
+
+    private void copyLiveEntries(long end) throws IOException {
+        if (compaction.length == 0) {
+            DataOutputStream output = new DataOutputStream(new FileOutputStream(compaction.file));
+            try {
+                output.write(logHeader(compaction.generation));
+            } finally {
+                output.close();
+            }
+            compaction.length = LOG_HEADER_SIZE;
+        } else if (compaction.file.length() != compaction.length) {
+            throw new IOException(String.format("%s has been modified.", compaction.file));
+        }
+        file.seek(compaction.cursor);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new RandomAccessFileInputStream(file)));
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compaction.file, true)));
+        try {
+            CRC32 checksum = new CRC32();
+            while (compaction.cursor < end) {
+                long position = compaction.cursor;
+                int bodySize = input.readInt();
+                int expectedChecksum = input.readInt();
+                if (bodySize < BODY_HEADER_SIZE || bodySize > length - position - ENTRY_HEADER_SIZE) {
+                    throw new IOException(String.format("Corrupt entry at offset %s.", position));
+                }
+                byte[] body = new byte[bodySize];
+                input.readFully(body);
+                checksum.reset();
+                checksum.update(body, 0, bodySize);
+                int keySize = ByteBuffer.wrap(body).getInt(1);
+                if ((int) checksum.getValue() != expectedChecksum || keySize < 0 || keySize > bodySize - BODY_HEADER_SIZE) {
+                    throw new IOException(String.format("Corrupt entry at offset %s.", position));
+                }
+                int size = ENTRY_HEADER_SIZE + bodySize;
+                if (body[0] == PUT) {
+                    HashCode keyHash = hashKey(body, BODY_HEADER_SIZE, keySize);
+                    Location location = index.get(keyHash);
+                    // Entries replaced later in the log are skipped. Entries replaced after they have been copied are copied again once the copy reaches their replacement.
+                    if (location != null && location.position == position) {
+                        output.writeInt(bodySize);
+                        output.writeInt(expectedChecksum);
+                        output.write(body);
+                        compaction.copied.put(keyHash, new Location(compaction.length, size));
+                        compaction.length += size;
+                    }
+                }
+                compaction.cursor += size;
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    private void replaceLog() throws IOException {
+        Map<HashCode, Location> compactedIndex = new HashMap<HashCode, Location>();
+        long compactedLiveBytes = 0;
+        for (Map.Entry<HashCode, Location> entry : index.entrySet()) {
+            Location location = compaction.copied.get(entry.getKey());
+            if (location == null) {
+                throw new IOException(String.format("Entry at offset %s has not been copied.", entry.getValue().position));
+            }
+            compactedIndex.put(entry.getKey(), location);
+            compactedLiveBytes += location.size;
+        }
+        file.close();
+        try {
+            Files.move(compaction.file.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            file = new RandomAccessFile(logFile, "rw");
+        }
+        index.clear();
+        index.putAll(compactedIndex);
+        generation = compaction.generation;
+        length = compaction.length;
+        liveBytes = compactedLiveBytes;
+        compaction = null;
+        saveIndex();
+        // Compactions of the replaced log by other processes, or left behind by processes that stopped, are of no use anymore
+        File[] compactionFiles = logFile.getParentFile().listFiles();
+        if (compactionFiles != null) {
+            for (File compactionFile : compactionFiles) {
+                if (compactionFile.getName().startsWith(logFile.getName() + ".") && compactionFile.getName().endsWith(COMPACTION_FILE_SUFFIX)) {
+                    Files.deleteIfExists(compactionFile.toPath());
+                }
+            }
+        }
+    }
+
+    private void abandonCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(compaction.file.toPath());
+        } catch (IOException e) {
+            LOGGER.debug("Could not delete {}.", compaction.file, e);
+        }
+        compaction = null;
+    }
+
+    private void saveIndex() throws IOException {
+        File newIndexFile = new File(indexFile.getParentFile(), indexFile.getName() + ".new");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(newIndexFile)));
+        try {
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(generation);
+            output.writeLong(length);
+            output.writeInt(index.size());
+            for (Map.Entry<HashCode, Location> entry : index.entrySet()) {
+                output.write(entry.getKey().toByteArray());
+                output.writeLong(entry.getValue().position);
+                output.writeInt(entry.getValue().size);
+            }
+        } finally {
+            output.close();
+        }
+        Files.move(newIndexFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexedLength = length;
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(bytes);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return bytes.toByteArray();
+    }
+
+    private static HashCode hashKey(byte[] bytes, int offset, int length) {
+        PrimitiveHasher hasher = Hashing.murmur3().newPrimitiveHasher();
+        hasher.putBytes(bytes, offset, length);
+        return hasher.hash();
+    }
+
+    private static boolean regionEquals(byte[] bytes, int offset, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Compaction {
+        private final File file;
+        private final long generation;
+        // The new location of each entry copied so far
+        private final Map<HashCode, Location> copied = new HashMap<HashCode, Location>();
+        // The position in the log up to which the live entries have been copied
+        private long cursor = LOG_HEADER_SIZE;
+        // The length of the new log, or 0 when it has not been created yet
+        private long length;
+
+        Compaction(File file, long generation) {
+            this.file = file;
+            this.generation = generation;
+        }
+    }
+
+    private static class Location {
+        final long position;
+        final int size;
+
+        Location(long position, int size) {
+            this.position = position;
+            this.size = size;
+        }
+    }
+}
@@ -17,8 +17,10 @@
 
 import com.google.common.collect.ImmutableSet;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.IndexedCacheStorage;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.io.StreamByteBuffer;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -47,7 +49,7 @@
 // todo - merge adjacent free blocks
 // todo - use more efficient lookup for free block with nearest size
 @SuppressWarnings("unchecked")
-public class BTreePersistentIndexedCache<K, V> {
+public class BTreePersistentIndexedCache<K, V> implements IndexedCacheStorage<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
     private final File cacheFile;
     private final KeyHasher<K> keyHasher;
@@ -68,7 +70,7 @@ public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer,
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
+        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile, isMemoryMappingEnabled()), ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
         this.store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -77,6 +79,11 @@ public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer,
         }
     }
 
+    private static boolean isMemoryMappingEnabled() {
+        // A mapped file cannot be truncated on Windows until the mapping has been garbage collected
+        return Boolean.getBoolean(FileBackedBlockStore.MEMORY_MAPPED_PROPERTY) && !OperatingSystem.current().isWindows();
+    }
+
     @Override
     public String toString() {
         return "cache " + cacheFile.getName() + " (" + cacheFile + ")";
@@ -121,6 +128,7 @@ public void run() {
         header = store.readFirst(HeaderBlock.class);
     }
 
+    @Override
     public V get(K key) {
         try {
             try {
@@ -138,6 +146,7 @@ public V get(K key) {
         }
     }
 
+    @Override
     public void put(K key, V value) {
         try {
             long hashCode = keyHasher.getHashCode(key);
@@ -163,6 +172,7 @@ public void put(K key, V value) {
         }
     }
 
+    @Override
     public void remove(K key) {
         try {
             Lookup lookup = header.getRoot().find(key);
@@ -195,6 +205,7 @@ public void reset() {
         }
     }
 
+    @Override
     public void close() {
         LOGGER.debug("Closing {}", this);
         try {
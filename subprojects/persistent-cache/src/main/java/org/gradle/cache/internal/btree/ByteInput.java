@@ -19,6 +19,7 @@
 import com.google.common.io.CountingInputStream;
 import org.gradle.internal.io.RandomAccessFileInputStream;
 
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
@@ -30,11 +31,21 @@
  */
 class ByteInput {
     private final RandomAccessFile file;
+    @Nullable
+    private final MappedFileRegions mappedRegions;
     private final ResettableBufferedInputStream bufferedInputStream;
     private CountingInputStream countingInputStream;
 
     public ByteInput(RandomAccessFile file) {
+        this(file, null);
+    }
+
+    /**
+     * Creates an input that reads through the given mapping of the file, when provided, rather than from the file itself.
+     */
+    public ByteInput(RandomAccessFile file, @Nullable MappedFileRegions mappedRegions) {
         this.file = file;
+        this.mappedRegions = mappedRegions;
         bufferedInputStream = new ResettableBufferedInputStream(new RandomAccessFileInputStream(file));
     }
 
@@ -42,9 +53,13 @@ public ByteInput(RandomAccessFile file) {
      * Starts reading from the given offset.
      */
     public DataInputStream start(long offset) throws IOException {
-        file.seek(offset);
-        bufferedInputStream.clear();
-        countingInputStream = new CountingInputStream(bufferedInputStream);
+        if (mappedRegions != null) {
+            countingInputStream = new CountingInputStream(mappedRegions.openAt(offset));
+        } else {
+            file.seek(offset);
+            bufferedInputStream.clear();
+            countingInputStream = new CountingInputStream(bufferedInputStream);
+        }
         return new DataInputStream(countingInputStream);
     }
 
@@ -17,6 +17,7 @@
 
 import org.gradle.api.UncheckedIOException;
 
+import javax.annotation.Nullable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -24,16 +25,29 @@
 import java.io.RandomAccessFile;
 
 public class FileBackedBlockStore implements BlockStore {
+    /**
+     * When set, blocks are read through a memory mapping of the cache file rather than through system calls.
+     */
+    public static final String MEMORY_MAPPED_PROPERTY = "org.gradle.unsafe.memory-mapped-caches";
+
     private final File cacheFile;
+    private final boolean memoryMapped;
     private RandomAccessFile file;
     private ByteOutput output;
     private ByteInput input;
+    @Nullable
+    private MappedFileRegions mappedRegions;
     private long nextBlock;
     private Factory factory;
     private long currentFileSize;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, false);
+    }
+
+    public FileBackedBlockStore(File cacheFile, boolean memoryMapped) {
         this.cacheFile = cacheFile;
+        this.memoryMapped = memoryMapped;
     }
 
     @Override
@@ -48,7 +62,8 @@ public void open(Runnable runnable, Factory factory) {
             cacheFile.getParentFile().mkdirs();
             file = new RandomAccessFile(cacheFile, "rw");
             output = new ByteOutput(file);
-            input = new ByteInput(file);
+            mappedRegions = memoryMapped ? new MappedFileRegions(file.getChannel()) : null;
+            input = new ByteInput(file, mappedRegions);
             currentFileSize = file.length();
             nextBlock = currentFileSize;
             if (currentFileSize == 0) {
@@ -62,6 +77,9 @@ public void open(Runnable runnable, Factory factory) {
     @Override
     public void close() {
         try {
+            if (mappedRegions != null) {
+                mappedRegions.reset();
+            }
             file.close();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -71,6 +89,9 @@ public void close() {
     @Override
     public void clear() {
         try {
+            if (mappedRegions != null) {
+                mappedRegions.reset();
+            }
             file.setLength(0);
             currentFileSize = 0;
         } catch (IOException e) {
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps a file into memory in fixed size regions, so that reading from the file does not require a system call.
+ *
+ * Only the current content of the file is mapped. When a read goes beyond the mapped content, the mapping is extended to the current length of the file.
+ * Writes made through the channel of the file are visible through the mapping.
+ */
+class MappedFileRegions {
+    // Map the file in regions, so that files larger than a single buffer can be mapped
+    private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private long mappedSize;
+
+    public MappedFileRegions(FileChannel channel) {
+        this(channel, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileRegions(FileChannel channel, int regionSize) {
+        this.channel = channel;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Returns a stream that reads from the given offset.
+     */
+    public InputStream openAt(long offset) {
+        return new RegionInputStream(offset);
+    }
+
+    /**
+     * Discards the mapping. Must be called before the file is truncated.
+     */
+    public void reset() {
+        regions.clear();
+        mappedSize = 0;
+    }
+
+    /**
+     * Makes sure the given position is mapped, if it lies within the file.
+     *
+     * @return false when the position is beyond the end of the file.
+     */
+    private boolean ensureMapped(long position) throws IOException {
+        if (position < mappedSize) {
+            return true;
+        }
+        long fileSize = channel.size();
+        if (position >= fileSize) {
+            return false;
+        }
+        // The last region may have been mapped while the file was shorter, so map it again
+        if (!regions.isEmpty() && regions.get(regions.size() - 1).capacity() < regionSize) {
+            regions.remove(regions.size() - 1);
+            mappedSize = (long) regions.size() * regionSize;
+        }
+        while (mappedSize < fileSize) {
+            long length = Math.min(regionSize, fileSize - mappedSize);
+            regions.add(channel.map(FileChannel.MapMode.READ_ONLY, mappedSize, length));
+            mappedSize += length;
+        }
+        return true;
+    }
+
+    private class RegionInputStream extends InputStream {
+        private long position;
+        private ByteBuffer current;
+
+        RegionInputStream(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!selectRegion()) {
+                return -1;
+            }
+            position++;
+            return current.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!selectRegion()) {
+                return -1;
+            }
+            int count = Math.min(len, current.remaining());
+            current.get(bytes, off, count);
+            position += count;
+            return count;
+        }
+
+        private boolean selectRegion() throws IOException {
+            if (current != null && current.hasRemaining()) {
+                return true;
+            }
+            if (!ensureMapped(position)) {
+                return false;
+            }
+            int index = (int) (position / regionSize);
+            current = regions.get(index).duplicate();
+            // Cast needed for running on Java 8 when compiled with Java 9+
+            ((Buffer) current).position((int) (position - (long) index * regionSize));
+            return true;
+        }
+    }
+}
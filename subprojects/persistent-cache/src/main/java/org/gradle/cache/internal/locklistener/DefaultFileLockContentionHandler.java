@@ -200,12 +200,18 @@ public boolean maybePingOwner(int port, long lockId, String displayName, long ti
             return false;
         }
 
+        // Register the signal before pinging, as an idle owner may release the lock and confirm the release before the ping call returns
+        lock.lock();
+        try {
+            lockReleasedSignals.put(lockId, signal);
+        } finally {
+            lock.unlock();
+        }
         boolean pingSentSuccessfully = getCommunicator().pingOwner(port, lockId, displayName);
         if (pingSentSuccessfully) {
             lock.lock();
             try {
                 unlocksRequestedFrom.put(lockId, port);
-                lockReleasedSignals.put(lockId, signal);
             } finally {
                 lock.unlock();
             }
@@ -47,6 +47,52 @@ class CacheAccessWorkerTest extends ConcurrentSpec {
         cacheAccessWorker?.stop()
     }
 
+    def "applies only the last of consecutive queued updates of the same key"() {
+        given:
+        def cache = new Object()
+        def applied = []
+        def completed = []
+        cacheAccessWorker.enqueueUpdate(cache, "a", { applied << "a1" }, { completed << "a1" })
+        cacheAccessWorker.enqueueUpdate(cache, "b", { applied << "b1" }, { completed << "b1" })
+        cacheAccessWorker.enqueueUpdate(cache, "a", { applied << "a2" }, { completed << "a2" })
+        cacheAccessWorker.enqueueUpdate(new Object(), "a", { applied << "other" }, { completed << "other" })
+        cacheAccessWorker.enqueueUpdate(cache, "a", { applied << "a3" }, { completed << "a3" })
+
+        when:
+        start(cacheAccessWorker)
+        cacheAccessWorker.flush()
+
+        then:
+        applied == ["a1", "b1", "other", "a3"]
+        completed == ["a1", "b1", "other", "a2", "a3"]
+        cacheAccessWorker.appliedOperationsCount == 4
+        cacheAccessWorker.coalescedOperationsCount == 1
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
+    def "does not coalesce updates across a read"() {
+        given:
+        def cache = new Object()
+        def value = null
+        start(cacheAccessWorker)
+
+        when:
+        cacheAccessWorker.enqueueUpdate(cache, "a", { value = 1 }, {})
+        def result = cacheAccessWorker.read { value }
+        cacheAccessWorker.enqueueUpdate(cache, "a", { value = 2 }, {})
+        cacheAccessWorker.flush()
+
+        then:
+        result == 1
+        value == 2
+        cacheAccessWorker.coalescedOperationsCount == 0
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
     def "read propagates failure"() {
         given:
         def failure = new RuntimeException()
@@ -22,10 +22,11 @@ import org.gradle.cache.CrossProcessCacheAccess
 import org.gradle.cache.FileLock
 import org.gradle.cache.FileLockManager
 import org.gradle.cache.FileLockReleasedSignal
+import org.gradle.cache.IndexedCacheStorage
+import org.gradle.cache.IndexedCacheStorageFormat
 import org.gradle.cache.LockOptions
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache
 import org.gradle.cache.PersistentIndexedCacheParameters
-import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
 import org.gradle.internal.Factory
 import org.gradle.internal.serialize.BaseSerializerFactory
 import org.gradle.internal.serialize.Serializer
@@ -47,12 +48,12 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
     final File lockFile = tmpDir.file('lock.bin')
     final File cacheDir = tmpDir.file('caches')
     final FileLock lock = Mock()
-    final BTreePersistentIndexedCache<String, Integer> backingCache = Mock()
+    final IndexedCacheStorage<String, Integer> backingCache = Mock()
 
     private DefaultCacheAccess newAccess(FileLockManager.LockMode lockMode) {
         new DefaultCacheAccess("<display-name>", lockFile, mode(lockMode), cacheDir, lockManager, initializationAction, cleanupAction, executorFactory) {
             @Override
-            <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+            <K, V> IndexedCacheStorage<K, V> doCreateCache(File cacheFile, IndexedCacheStorageFormat storageFormat, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
                 return backingCache
             }
         }
@@ -716,6 +717,20 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         access?.close()
     }
 
+    def "throws InvalidCacheReuseException when cache storage format differs"() {
+        def access = newAccess(None)
+
+        when:
+        access.newCache(PersistentIndexedCacheParameters.of('cache', String.class, Integer.class))
+        access.newCache(PersistentIndexedCacheParameters.of('cache', String.class, Integer.class).withStorageFormat(IndexedCacheStorageFormat.APPEND_ONLY_LOG))
+
+        then:
+        thrown(DefaultCacheAccess.InvalidCacheReuseException)
+
+        cleanup:
+        access?.close()
+    }
+
     def "returns the same cache object when cache decorator match"() {
         def access = newAccess(None)
         def decorator = Mock(CacheDecorator)
@@ -71,4 +71,15 @@ class DefaultFileLockManagerAwaitableFileLockReleasedSignalTest extends Concurre
         then:
         notThrown(Exception)
     }
+
+    def "remembers trigger until the next wait"() {
+        when:
+        signal.trigger()
+
+        then:
+        signal.await(10000)
+
+        and:
+        !signal.await(10)
+    }
 }
@@ -145,7 +145,7 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
 
         then:
         1 * crossProcessCacheAccess.acquireFileLock() >> lock
-        1 * asyncCacheAccess.enqueue(_) >> { Runnable action -> action.run() }
+        1 * asyncCacheAccess.enqueueUpdate(_, "key", _, _) >> { Object cache, Object key, Runnable update, Runnable completion -> update.run(); completion.run() }
         1 * target.put("key", "new value")
         1 * lock.run()
         0 * _._
@@ -184,7 +184,7 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
 
         then:
         1 * crossProcessCacheAccess.acquireFileLock() >> lock
-        1 * asyncCacheAccess.enqueue(_) >> { Runnable action -> action.run() }
+        1 * asyncCacheAccess.enqueueUpdate(_, "key", _, _) >> { Object cache, Object key, Runnable update, Runnable completion -> update.run(); completion.run() }
         1 * target.remove("key")
         1 * lock.run()
         0 * _._
@@ -200,4 +200,56 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
         0 * target._
     }
 
+    def "reads value held in memory without acquiring file lock while this process holds the lock"() {
+        given:
+        def cache = cacheFactory.decorator(100, true).decorate("path/fileSnapshots.bin", "fileSnapshots", target, crossProcessCacheAccess, asyncCacheAccess)
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "result"
+
+        and:
+        1 * crossProcessCacheAccess.getLockStamp() >> 0
+        1 * crossProcessCacheAccess.withFileLock(_) >> { Factory task -> task.create() }
+        1 * asyncCacheAccess.read(_) >> { Factory task -> task.create() }
+        1 * target.get("key") >> "result"
+        0 * target._
+
+        when:
+        result = cache.get("key")
+
+        then:
+        result == "result"
+
+        and:
+        2 * crossProcessCacheAccess.getLockStamp() >> 12
+        0 * crossProcessCacheAccess._
+        0 * target._
+    }
+
+    def "acquires file lock when the lock is released while reading value held in memory"() {
+        given:
+        def cache = cacheFactory.decorator(100, true).decorate("path/fileSnapshots.bin", "fileSnapshots", target, crossProcessCacheAccess, asyncCacheAccess)
+
+        when:
+        cache.get("key")
+
+        then:
+        1 * crossProcessCacheAccess.withFileLock(_) >> { Factory task -> task.create() }
+        1 * asyncCacheAccess.read(_) >> { Factory task -> task.create() }
+        1 * target.get("key") >> "result"
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "result"
+
+        and:
+        2 * crossProcessCacheAccess.getLockStamp() >>> [12, 0]
+        1 * crossProcessCacheAccess.withFileLock(_) >> { Factory task -> task.create() }
+        0 * target._
+    }
 }
@@ -16,15 +16,15 @@
 package org.gradle.cache.internal
 
 import org.gradle.cache.FileAccess
-import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.cache.IndexedCacheStorage
 import org.gradle.internal.Factory
 import spock.lang.Specification
 
 class MultiProcessSafePersistentIndexedCacheTest extends Specification {
     final FileAccess fileAccess = Mock()
-    final Factory<BTreePersistentIndexedCache<String, String>> factory = Mock()
+    final Factory<IndexedCacheStorage<String, String>> factory = Mock()
     final cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess)
-    final BTreePersistentIndexedCache<String, String> backingCache = Mock()
+    final IndexedCacheStorage<String, String> backingCache = Mock()
 
     def "opens cache on first access"() {
         when:
@@ -129,6 +129,38 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
+    def "reopens closed cache on next access"() {
+        cacheOpened()
+        cache.finishWork()
+
+        when:
+        cache.get("value")
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.reopen() >> true
+        1 * fileAccess.readFile(!null) >> { Factory action -> action.create() }
+        1 * backingCache.get("value")
+        0 * _._
+    }
+
+    def "opens new cache on next access when closed cache cannot be reopened"() {
+        def newBackingCache = Mock(IndexedCacheStorage)
+        cacheOpened()
+        cache.finishWork()
+
+        when:
+        cache.get("value")
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.reopen() >> false
+        1 * factory.create() >> newBackingCache
+        1 * fileAccess.readFile(!null) >> { Factory action -> action.create() }
+        1 * newBackingCache.get("value")
+        0 * _._
+    }
+
     def cacheOpened() {
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
         1 * factory.create() >> backingCache
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+class OffHeapEntryStoreTest extends Specification {
+    def store = new OffHeapEntryStore<Long>("id", new LongCodec(), 100000)
+
+    def "returns unknown for entry that has not been added"() {
+        expect:
+        store.get("a") == OffHeapEntryStore.UNKNOWN
+    }
+
+    def "can add, replace and remove entries"() {
+        when:
+        store.put("a", 1L)
+        store.put("b", 2L)
+        store.put("a", 3L)
+
+        then:
+        store.get("a") == 3L
+        store.get("b") == 2L
+        store.size() == 2
+
+        when:
+        store.remove("a")
+
+        then:
+        store.get("a") == OffHeapEntryStore.UNKNOWN
+        store.get("b") == 2L
+        store.size() == 1
+    }
+
+    def "remembers entries without a value"() {
+        when:
+        store.putAbsent("a")
+
+        then:
+        store.get("a") == OffHeapEntryStore.ABSENT
+
+        when:
+        store.putIfUnknown("a", 1L)
+
+        then:
+        store.get("a") == OffHeapEntryStore.ABSENT
+
+        when:
+        store.put("a", 1L)
+
+        then:
+        store.get("a") == 1L
+    }
+
+    def "does not replace known entry when putting if unknown"() {
+        when:
+        store.putIfUnknown("a", 1L)
+        store.putIfUnknown("a", 2L)
+
+        then:
+        store.get("a") == 1L
+    }
+
+    def "forgets entry whose value cannot be packed"() {
+        given:
+        store.put("a", 1L)
+
+        when:
+        store.put("a", -1L)
+
+        then:
+        store.get("a") == OffHeapEntryStore.UNKNOWN
+        store.size() == 0
+    }
+
+    def "keeps all entries when the store grows and entries are removed"() {
+        when:
+        10000.times {
+            store.put("/some/path/" + it, it as Long)
+        }
+        (0..<10000).step(3).each {
+            store.remove("/some/path/" + it)
+        }
+
+        then:
+        (0..<10000).every {
+            store.get("/some/path/" + it) == (it % 3 == 0 ? OffHeapEntryStore.UNKNOWN : it as Long)
+        }
+    }
+
+    def "discards entries when full"() {
+        def store = new OffHeapEntryStore<Long>("id", new LongCodec(), 160)
+
+        when:
+        1000.times {
+            store.put("/some/path/" + it, it as Long)
+        }
+
+        then:
+        store.size() <= 160
+        store.get("/some/path/999") == 999L
+    }
+
+    def "can clear the store"() {
+        given:
+        1000.times {
+            store.put("/some/path/" + it, it as Long)
+        }
+
+        when:
+        store.clear()
+
+        then:
+        store.size() == 0
+        store.get("/some/path/1") == OffHeapEntryStore.UNKNOWN
+    }
+
+    static class LongCodec implements OffHeapValueCodec<Long> {
+        @Override
+        int getValueSize() {
+            return 8
+        }
+
+        @Override
+        boolean write(Long value, ByteBuffer buffer, int offset) {
+            if (value < 0) {
+                return false
+            }
+            buffer.putLong(offset, value)
+            return true
+        }
+
+        @Override
+        Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset)
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.api.Transformer
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.cache.PersistentIndexedCacheParameters
+import org.gradle.internal.Factory
+import org.gradle.internal.serialize.BaseSerializerFactory
+import spock.lang.Specification
+
+class StripedPersistentIndexedCacheTest extends Specification {
+    def parameters = PersistentIndexedCacheParameters.of("cache", BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER)
+    def stripes = (0..<4).collect { new Stripe() }
+    def cache = new StripedPersistentIndexedCache<String, String>(stripes*.cache, parameters)
+
+    def "routes operations for a key to the same stripe"() {
+        when:
+        100.times {
+            cache.put("key-" + it, "value-" + it)
+        }
+
+        then:
+        100.times {
+            assert cache.get("key-" + it) == "value-" + it
+            assert stripes.count { stripe -> stripe.indexedCache.get("key-" + it) != null } == 1
+        }
+
+        when:
+        cache.remove("key-1")
+
+        then:
+        cache.get("key-1") == null
+        stripes.every { it.indexedCache.get("key-1") == null }
+    }
+
+    def "spreads keys across stripes"() {
+        when:
+        1000.times {
+            cache.put("org.gradle:module-" + it + ":1.0", "value")
+        }
+
+        then:
+        stripes.every { it.indexedCache.entries.size() > 150 }
+    }
+
+    def "only locks the stripe of the key"() {
+        when:
+        cache.put("key", "value")
+        def stripe = stripes.find { it.indexedCache.get("key") != null }
+
+        then:
+        stripe.lockCount == 1
+        stripes.sum { it.lockCount } == 1
+
+        when:
+        def result = cache.useStripe("key", { cache.get("key") } as Factory)
+
+        then:
+        result == "value"
+        stripe.lockCount == 3
+        stripes.sum { it.lockCount } == 3
+    }
+
+    def "produces value in the stripe of the key while holding its lock"() {
+        def producer = Stub(Transformer) {
+            transform("key") >> "value"
+        }
+
+        when:
+        def result = cache.get("key", producer)
+
+        then:
+        result == "value"
+        stripes.sum { it.lockCount } == 1
+        stripes.find { it.lockCount == 1 }.indexedCache.get("key") == "value"
+    }
+
+    def "selects stripe using a hash that does not depend on the process"() {
+        expect:
+        StripedPersistentIndexedCache.stripeIndex([1, 2, 3] as byte[], 16) == 1
+        StripedPersistentIndexedCache.stripeIndex([-1, -1, -1, -1] as byte[], 7) in (0..<7)
+    }
+
+    static class Stripe {
+        final MapBackedIndexedCache indexedCache = new MapBackedIndexedCache()
+        int lockCount
+        final PersistentCache cache = [
+            createCache: { PersistentIndexedCacheParameters parameters -> indexedCache },
+            useCache: { action ->
+                lockCount++
+                action instanceof Factory ? action.create() : action.run()
+            }
+        ] as PersistentCache
+    }
+
+    static class MapBackedIndexedCache implements PersistentIndexedCache<String, String> {
+        final Map<String, String> entries = [:]
+
+        @Override
+        String get(String key) {
+            return entries[key]
+        }
+
+        @Override
+        String get(String key, Transformer<? extends String, ? super String> producer) {
+            return entries.computeIfAbsent(key, { producer.transform(it) })
+        }
+
+        @Override
+        void put(String key, String value) {
+            entries[key] = value
+        }
+
+        @Override
+        void remove(String key) {
+            entries.remove(key)
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.appendlog
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AppendOnlyLogPersistentIndexedCacheTest extends Specification {
+    private static final BaseSerializerFactory SERIALIZER_FACTORY = new BaseSerializerFactory()
+
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    TestFile logFile = tmpDir.file("cache.log")
+    TestFile indexFile = tmpDir.file("cache.log.idx")
+
+    def "returns null for unknown entry"() {
+        def cache = createCache()
+
+        expect:
+        cache.get("unknown") == null
+
+        cleanup:
+        cache.close()
+    }
+
+    def "persists added, replaced and removed entries"() {
+        def cache = createCache()
+
+        when:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.put("c", "3")
+        cache.put("a", "4")
+        cache.remove("b")
+
+        then:
+        cache.get("a") == "4"
+        cache.get("b") == null
+        cache.get("c") == "3"
+
+        when:
+        cache.close()
+        cache = createCache()
+
+        then:
+        cache.get("a") == "4"
+        cache.get("b") == null
+        cache.get("c") == "3"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "reads the whole log when the index is missing"() {
+        def cache = createCache()
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.close()
+
+        when:
+        indexFile.delete()
+        cache = createCache()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == "2"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "reads entries appended after the index was saved"() {
+        def cache = createCache()
+        cache.put("a", "1")
+        cache.close()
+        def savedIndex = indexFile.bytes
+
+        when:
+        cache = createCache()
+        cache.put("a", "2")
+        cache.put("b", "3")
+        cache.close()
+        indexFile.bytes = savedIndex
+        cache = createCache()
+
+        then:
+        cache.get("a") == "2"
+        cache.get("b") == "3"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards corrupt tail of the log and keeps the entries before it"() {
+        def cache = createCache()
+        cache.put("a", "1")
+        cache.close()
+        def lengthBeforeB = logFile.length()
+        cache = createCache()
+        cache.put("b", "2")
+        cache.close()
+
+        when:
+        indexFile.delete()
+        def file = new RandomAccessFile(logFile, "rw")
+        try {
+            file.setLength(logFile.length() - 1)
+        } finally {
+            file.close()
+        }
+        cache = createCache()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == null
+        logFile.length() == lengthBeforeB
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards log with an unknown header"() {
+        logFile.text = "not a log"
+
+        when:
+        def cache = createCache()
+
+        then:
+        cache.get("a") == null
+
+        when:
+        cache.put("a", "1")
+
+        then:
+        cache.get("a") == "1"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "compacts the log in steps when the cache is closed and most entries have been replaced"() {
+        def cache = createCache(100000)
+        def value = "x" * 10000
+        200.times {
+            cache.put("a", value + it)
+        }
+        cache.put("b", "2")
+
+        when:
+        cache.close()
+
+        then:
+        logFile.length() > 2000000
+        compactionFiles().size() == 1
+
+        when:
+        def steps = 1
+        while (logFile.length() > 20000 && steps < 20) {
+            assert cache.reopen()
+            cache.close()
+            steps++
+        }
+
+        then:
+        steps > 1
+        logFile.length() < 20000
+        compactionFiles().empty
+        cache.reopen()
+        cache.get("a") == value + 199
+        cache.get("b") == "2"
+
+        when:
+        cache.close()
+        cache = createCache()
+
+        then:
+        cache.get("a") == value + 199
+        cache.get("b") == "2"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "does not compact the log when it is opened or reopened"() {
+        def cache = createCache(100000)
+        def value = "x" * 10000
+        200.times {
+            cache.put("a", value + it)
+        }
+        cache.close()
+        def length = logFile.length()
+
+        when:
+        def reopened = cache.reopen()
+
+        then:
+        reopened
+        logFile.length() == length
+        cache.get("a") == value + 199
+
+        when:
+        def other = createCache()
+
+        then:
+        logFile.length() == length
+        other.get("a") == value + 199
+
+        cleanup:
+        other?.close()
+        cache.close()
+    }
+
+    def "keeps the entries appended by another cache while the log is compacted"() {
+        def cache = createCache(100000)
+        def value = "x" * 10000
+        200.times {
+            cache.put("a", value + it)
+        }
+        cache.put("b", "2")
+        cache.put("c", "3")
+        cache.close()
+
+        when:
+        def other = createCache(100000)
+        other.put("b", "4")
+        other.remove("c")
+        other.put("d", "5")
+        other.close()
+        while (!compactionFiles().empty) {
+            assert cache.reopen()
+            cache.close()
+        }
+        cache = createCache()
+
+        then:
+        logFile.length() < 20000
+        cache.get("a") == value + 199
+        cache.get("b") == "4"
+        cache.get("c") == null
+        cache.get("d") == "5"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "abandons the compaction when another cache has replaced the log"() {
+        def cache = createCache(100000)
+        def value = "x" * 10000
+        200.times {
+            cache.put("a", value + it)
+        }
+        cache.close()
+
+        when:
+        logFile.text = "not a log"
+        def other = createCache()
+        other.put("b", "2")
+        other.close()
+
+        then:
+        !cache.reopen()
+        compactionFiles().empty
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == "2"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "reads only the entries appended by another cache when reopened"() {
+        def cache = createCache()
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.close()
+
+        when:
+        def other = createCache()
+        other.put("a", "3")
+        other.remove("b")
+        other.put("c", "4")
+        other.close()
+        def reopened = cache.reopen()
+
+        then:
+        reopened
+        cache.get("a") == "3"
+        cache.get("b") == null
+        cache.get("c") == "4"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "cannot be reopened once another cache has replaced the log"() {
+        def cache = createCache()
+        cache.put("a", "1")
+        cache.close()
+
+        when:
+        logFile.text = "not a log"
+        def other = createCache()
+        other.put("b", "2")
+        other.close()
+
+        then:
+        !cache.reopen()
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == "2"
+
+        cleanup:
+        cache.close()
+    }
+
+    def "only saves the index when a sizeable part of the log is not covered by it"() {
+        def cache = createCache()
+        100.times {
+            cache.put("key" + it, "value")
+        }
+        cache.close()
+        def savedIndex = indexFile.bytes
+
+        when:
+        cache.reopen()
+        cache.put("a", "1")
+        cache.close()
+
+        then:
+        indexFile.bytes == savedIndex
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("key99") == "value"
+
+        cleanup:
+        cache.close()
+    }
+
+    private AppendOnlyLogPersistentIndexedCache<String, String> createCache() {
+        return new AppendOnlyLogPersistentIndexedCache<String, String>(logFile, SERIALIZER_FACTORY.getSerializerFor(String), SERIALIZER_FACTORY.getSerializerFor(String))
+    }
+
+    private AppendOnlyLogPersistentIndexedCache<String, String> createCache(long minCompactionStepSize) {
+        return new AppendOnlyLogPersistentIndexedCache<String, String>(logFile, SERIALIZER_FACTORY.getSerializerFor(String), SERIALIZER_FACTORY.getSerializerFor(String), minCompactionStepSize)
+    }
+
+    private List<File> compactionFiles() {
+        return tmpDir.testDirectory.listFiles().findAll { it.name.endsWith(".compacting") }
+    }
+}
@@ -58,6 +58,38 @@ class ByteInputTest extends Specification {
         input.done()
     }
 
+    def "can read through memory mapping as file grows"() {
+        given:
+        def mappedInput = new ByteInput(file, new MappedFileRegions(file.channel, 6))
+        file.seek(0)
+        file.writeInt(123)
+        file.writeInt(321)
+
+        expect:
+        def stream = mappedInput.start(0)
+        stream.readInt() == 123
+        stream.readInt() == 321
+        mappedInput.getBytesRead() == 8
+        mappedInput.done()
+
+        when:
+        file.writeInt(456)
+        file.writeLong(789)
+        def stream2 = mappedInput.start(4)
+
+        then:
+        stream2.readInt() == 321
+        stream2.readInt() == 456
+        stream2.readLong() == 789
+        mappedInput.done()
+
+        when:
+        mappedInput.start(20).readInt()
+
+        then:
+        thrown(EOFException)
+    }
+
     def "cannot read beyond end of file"() {
         when:
         input.start(123).readInt()
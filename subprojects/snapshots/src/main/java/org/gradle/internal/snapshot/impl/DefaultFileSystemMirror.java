@@ -22,19 +22,18 @@
 import org.gradle.internal.snapshot.WellKnownFileLocations;
 
 import javax.annotation.Nullable;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * See {@link DefaultFileSystemSnapshotter} for some more details
  */
 public class DefaultFileSystemMirror implements FileSystemMirror {
     // Maps from interned absolute path for a file to metadata for the file.
-    private final Map<String, FileMetadataSnapshot> metadata = new ConcurrentHashMap<String, FileMetadataSnapshot>();
-    private final Map<String, FileMetadataSnapshot> cacheMetadata = new ConcurrentHashMap<String, FileMetadataSnapshot>();
+    private final FileHierarchyMap<FileMetadataSnapshot> metadata = new FileHierarchyMap<FileMetadataSnapshot>();
+    private final FileHierarchyMap<FileMetadataSnapshot> cacheMetadata = new FileHierarchyMap<FileMetadataSnapshot>();
     // Maps from interned absolute path for a file to snapshot for the file.
-    private final Map<String, FileSystemLocationSnapshot> files = new ConcurrentHashMap<String, FileSystemLocationSnapshot>();
-    private final Map<String, FileSystemLocationSnapshot> cacheFiles = new ConcurrentHashMap<String, FileSystemLocationSnapshot>();
+    private final FileHierarchyMap<FileSystemLocationSnapshot> files = new FileHierarchyMap<FileSystemLocationSnapshot>();
+    private final FileHierarchyMap<FileSystemLocationSnapshot> cacheFiles = new FileHierarchyMap<FileSystemLocationSnapshot>();
 
     private final WellKnownFileLocations wellKnownFileLocations;
 
@@ -81,8 +80,7 @@ public void putMetadata(String absolutePath, FileMetadataSnapshot metadata) {
     }
 
     public void beforeOutputChange() {
-        // When the outputs are generated, throw away all state for files that do not live in an append-only cache.
-        // This is intentionally very simple, to be improved later
+        // When it is not known which outputs are generated, throw away all state for files that do not live in an append-only cache.
         metadata.clear();
         files.clear();
     }
@@ -96,11 +94,34 @@ public void beforeBuildFinished() {
     }
 
     public void beforeOutputChange(Iterable<String> affectedOutputPaths) {
-        for (String affectedOutputPath : affectedOutputPaths) {
-            metadata.remove(affectedOutputPath);
-            files.remove(affectedOutputPath);
-            cacheMetadata.remove(affectedOutputPath);
-            cacheFiles.remove(affectedOutputPath);
+        // Throw away the state for the outputs, for anything below them and for any directory containing them
+        invalidate(affectedOutputPaths);
+    }
+
+    /**
+     * Discards all state that is not known to be up-to-date at the end of a build, keeping the state for locations accepted by the given predicate.
+     */
+    public void beforeBuildFinished(Predicate<String> retainedLocations) {
+        metadata.removeIf(retainedLocations.negate());
+        cacheMetadata.removeIf(retainedLocations.negate());
+        files.removeIf(retainedLocations.negate());
+        cacheFiles.removeIf(retainedLocations.negate());
+    }
+
+    /**
+     * Discards all state for locations that have been changed by something other than the build.
+     * This includes the state of anything below a changed location and the state of any directory that contains a changed location.
+     */
+    public void changed(Iterable<String> changedPaths) {
+        invalidate(changedPaths);
+    }
+
+    private void invalidate(Iterable<String> paths) {
+        for (String path : paths) {
+            metadata.invalidate(path);
+            files.invalidate(path);
+            cacheMetadata.invalidate(path);
+            cacheFiles.invalidate(path);
         }
     }
 }
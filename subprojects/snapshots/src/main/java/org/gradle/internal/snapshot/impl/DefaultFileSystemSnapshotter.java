@@ -35,6 +35,7 @@
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Supplier;
@@ -59,11 +60,15 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
     private final DirectorySnapshotter directorySnapshotter;
 
     public DefaultFileSystemSnapshotter(FileHasher hasher, Interner<String> stringInterner, Stat stat, FileSystemMirror fileSystemMirror, String... defaultExcludes) {
+        this(hasher, stringInterner, stat, fileSystemMirror, null, defaultExcludes);
+    }
+
+    public DefaultFileSystemSnapshotter(FileHasher hasher, Interner<String> stringInterner, Stat stat, FileSystemMirror fileSystemMirror, @Nullable Executor directoryWalkExecutor, String... defaultExcludes) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.stat = stat;
         this.fileSystemMirror = fileSystemMirror;
-        this.directorySnapshotter = new DirectorySnapshotter(hasher, stringInterner, defaultExcludes);
+        this.directorySnapshotter = new DirectorySnapshotter(hasher, stringInterner, directoryWalkExecutor, defaultExcludes);
     }
 
     @Override
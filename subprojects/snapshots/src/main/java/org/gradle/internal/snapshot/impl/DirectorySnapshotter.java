@@ -44,23 +44,41 @@
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
 public class DirectorySnapshotter {
     private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySnapshotter.class);
 
+    /**
+     * When set to {@code true}, directories are walked and their files are hashed on the executor passed to {@link DefaultFileSystemSnapshotter}.
+     */
+    public static final String PARALLEL_SNAPSHOTTING_PROPERTY = "org.gradle.unsafe.parallel-directory-snapshotting";
+
     private final FileHasher hasher;
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
+    private final Executor executor;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, String... defaultExcludes) {
+        this(hasher, stringInterner, null, defaultExcludes);
+    }
+
+    /**
+     * @param executor the executor to walk directories on, or {@code null} to walk them on the calling thread.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, @Nullable Executor executor, String... defaultExcludes) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
+        this.executor = executor;
     }
 
     public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate, final AtomicBoolean hasBeenFiltered) {
+        if (executor != null) {
+            return new ParallelDirectoryWalker(executor, predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes).walk(Paths.get(absolutePath));
+        }
         try {
             Path rootPath = Paths.get(absolutePath);
             PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes);
@@ -144,6 +162,48 @@ public boolean test(String element) {
         }
     }
 
+    static FileSystemLocationSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, FileHasher hasher, Interner<String> stringInterner) {
+        String internedAbsoluteFilePath = stringInterner.intern(absoluteFilePath.toString());
+        if (attrs.isRegularFile()) {
+            try {
+                HashCode hash = hasher.hash(absoluteFilePath.toFile(), attrs.size(), attrs.lastModifiedTime().toMillis());
+                FileMetadata metadata = FileMetadata.from(attrs);
+                return new RegularFileSnapshot(internedAbsoluteFilePath, internedName, hash, metadata);
+            } catch (UncheckedIOException e) {
+                LOGGER.info("Could not read file path '{}'.", absoluteFilePath, e);
+            }
+        }
+        return new MissingFileSnapshot(internedAbsoluteFilePath, internedName);
+    }
+
+    static boolean shouldVisit(
+        Path path,
+        String internedName,
+        boolean isDirectory,
+        @Nullable BasicFileAttributes attrs,
+        Iterable<String> relativePath,
+        DefaultExcludes defaultExcludes,
+        @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
+        AtomicBoolean hasBeenFiltered
+    ) {
+        if (isDirectory) {
+            if (defaultExcludes.excludeDir(internedName)) {
+                return false;
+            }
+        } else if (defaultExcludes.excludeFile(internedName)) {
+            return false;
+        }
+
+        if (predicate == null) {
+            return true;
+        }
+        boolean allowed = predicate.test(path, internedName, isDirectory, attrs, relativePath);
+        if (!allowed) {
+            hasBeenFiltered.set(true);
+        }
+        return allowed;
+    }
+
     private static class PathVisitor implements java.nio.file.FileVisitor<Path> {
         private final MerkleDirectorySnapshotBuilder builder;
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
@@ -195,17 +255,7 @@ public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
         }
 
         private FileSystemLocationSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs) {
-            String internedAbsoluteFilePath = intern(absoluteFilePath.toString());
-            if (attrs.isRegularFile()) {
-                try {
-                    HashCode hash = hasher.hash(absoluteFilePath.toFile(), attrs.size(), attrs.lastModifiedTime().toMillis());
-                    FileMetadata metadata = FileMetadata.from(attrs);
-                    return new RegularFileSnapshot(internedAbsoluteFilePath, internedName, hash, metadata);
-                } catch (UncheckedIOException e) {
-                    LOGGER.info("Could not read file path '{}'.", absoluteFilePath, e);
-                }
-            }
-            return new MissingFileSnapshot(internedAbsoluteFilePath, internedName);
+            return DirectorySnapshotter.snapshotFile(absoluteFilePath, internedName, attrs, hasher, stringInterner);
         }
 
         /** unlistable directories (and maybe some locked files) will stop here */
@@ -252,22 +302,7 @@ private String intern(String string) {
          * Excludes won't mark this walk as `filtered`, only if the `predicate` rejects any entry.
          **/
         private boolean shouldVisit(Path path, String internedName, boolean isDirectory, @Nullable BasicFileAttributes attrs, Iterable<String> relativePath) {
-            if (isDirectory) {
-                if (defaultExcludes.excludeDir(internedName)) {
-                    return false;
-                }
-            } else if (defaultExcludes.excludeFile(internedName)) {
-                return false;
-            }
-
-            if (predicate == null) {
-                return true;
-            }
-            boolean allowed = predicate.test(path, internedName, isDirectory, attrs, relativePath);
-            if (!allowed) {
-                hasBeenFiltered.set(true);
-            }
-            return allowed;
+            return DirectorySnapshotter.shouldVisit(path, internedName, isDirectory, attrs, relativePath, defaultExcludes, predicate, hasBeenFiltered);
         }
 
         public FileSystemLocationSnapshot getResult() {
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * A map from absolute paths to values, which can efficiently find and remove the entries for a location, the locations below it and the locations above it.
+ *
+ * The entries are kept sorted by path, so that all the locations below some location form a contiguous range of keys.
+ */
+@ThreadSafe
+public class FileHierarchyMap<V> {
+    private final char separatorChar;
+    private final ConcurrentNavigableMap<String, V> entries = new ConcurrentSkipListMap<String, V>();
+
+    public FileHierarchyMap() {
+        this(File.separatorChar);
+    }
+
+    public FileHierarchyMap(char separatorChar) {
+        this.separatorChar = separatorChar;
+    }
+
+    @Nullable
+    public V get(String absolutePath) {
+        return entries.get(absolutePath);
+    }
+
+    public void put(String absolutePath, V value) {
+        entries.put(absolutePath, value);
+    }
+
+    public void remove(String absolutePath) {
+        entries.remove(absolutePath);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Removes the entries for the given location, for all locations below it and for all the locations above it.
+     */
+    public void invalidate(String absolutePath) {
+        descendantsOf(absolutePath).clear();
+        String path = absolutePath;
+        while (path != null) {
+            entries.remove(path);
+            path = parentOf(path);
+        }
+    }
+
+    /**
+     * Returns whether there is an entry for the given location or for any location below it.
+     */
+    public boolean containsSelfOrDescendant(String absolutePath) {
+        return entries.containsKey(absolutePath) || !descendantsOf(absolutePath).isEmpty();
+    }
+
+    /**
+     * Returns whether there is an entry for any location above the given location.
+     */
+    public boolean containsAncestor(String absolutePath) {
+        String path = parentOf(absolutePath);
+        while (path != null) {
+            if (entries.containsKey(path)) {
+                return true;
+            }
+            path = parentOf(path);
+        }
+        return false;
+    }
+
+    public void removeIf(Predicate<String> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private ConcurrentNavigableMap<String, V> descendantsOf(String absolutePath) {
+        String prefix = !absolutePath.isEmpty() && absolutePath.charAt(absolutePath.length() - 1) == separatorChar
+            ? absolutePath
+            : absolutePath + separatorChar;
+        // All paths starting with the prefix sort between the prefix itself and the prefix with its last character incremented
+        String upperBound = prefix.substring(0, prefix.length() - 1) + (char) (separatorChar + 1);
+        return entries.subMap(prefix, true, upperBound, false);
+    }
+
+    @Nullable
+    private String parentOf(String absolutePath) {
+        int index = absolutePath.lastIndexOf(separatorChar);
+        if (index < 0 || index == absolutePath.length() - 1) {
+            // A relative name or a file system root
+            return null;
+        }
+        if (index == 0 || absolutePath.charAt(index - 1) == ':') {
+            // Keep the separator for roots like '/' and 'C:\'
+            return absolutePath.substring(0, index + 1);
+        }
+        return absolutePath.substring(0, index);
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.SnapshottingFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Snapshots a directory tree like {@link DirectorySnapshotter.PathVisitor}, but walks sibling directories concurrently and hashes files in batches on an executor.
+ *
+ * The snapshot of each directory is assembled from the snapshots of its children once they are all complete, so the result does not depend on the order in which the children are visited.
+ *
+ * A task waiting for its children runs the ones the executor has not started yet itself, so that the walk makes progress with any number of threads.
+ */
+class ParallelDirectoryWalker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelDirectoryWalker.class);
+    private static final int FILES_PER_TASK = 64;
+
+    private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
+    private final AtomicBoolean hasBeenFiltered;
+    private final FileHasher hasher;
+    private final Interner<String> stringInterner;
+    private final DirectorySnapshotter.DefaultExcludes defaultExcludes;
+    private final Executor executor;
+
+    ParallelDirectoryWalker(
+        Executor executor,
+        @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
+        AtomicBoolean hasBeenFiltered,
+        FileHasher hasher,
+        Interner<String> stringInterner,
+        DirectorySnapshotter.DefaultExcludes defaultExcludes
+    ) {
+        this.predicate = predicate;
+        this.hasBeenFiltered = hasBeenFiltered;
+        this.hasher = hasher;
+        this.stringInterner = stringInterner;
+        this.defaultExcludes = defaultExcludes;
+        this.executor = executor;
+    }
+
+    @Nullable
+    public FileSystemLocationSnapshot walk(Path root) {
+        String internedName = stringInterner.intern(root.getFileName() == null ? "" : root.getFileName().toString());
+        BasicFileAttributes attrs = readAttributes(root);
+        if (attrs == null) {
+            return visitFailed(root, internedName, ImmutableList.of());
+        }
+        if (attrs.isDirectory()) {
+            return new DirectoryTask(root, internedName, ImmutableList.of(), ImmutableList.of(fileKeyOf(root, attrs))).call();
+        }
+        if (shouldVisit(root, internedName, false, attrs, ImmutableList.of())) {
+            return DirectorySnapshotter.snapshotFile(root, internedName, attrs, hasher, stringInterner);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the attributes of the given path, following symbolic links. Falls back to the attributes of the link itself for broken links, like {@link Files#walkFileTree(Path, java.nio.file.FileVisitor)}.
+     */
+    @Nullable
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Object fileKeyOf(Path path, BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        return fileKey != null ? fileKey : path.toAbsolutePath().normalize();
+    }
+
+    @Nullable
+    private FileSystemLocationSnapshot visitFailed(Path path, String internedName, Iterable<String> relativePath) {
+        if (shouldVisit(path, internedName, Files.isDirectory(path), null, relativePath)) {
+            LOGGER.info("Could not read file path '{}'.", path);
+            return new MissingFileSnapshot(stringInterner.intern(path.toString()), internedName);
+        }
+        return null;
+    }
+
+    private boolean shouldVisit(Path path, String internedName, boolean isDirectory, @Nullable BasicFileAttributes attrs, Iterable<String> relativePath) {
+        return DirectorySnapshotter.shouldVisit(path, internedName, isDirectory, attrs, relativePath, defaultExcludes, predicate, hasBeenFiltered);
+    }
+
+    private <T> ForkedTask<T> fork(Callable<T> action) {
+        ForkedTask<T> task = new ForkedTask<T>(action);
+        executor.execute(task);
+        return task;
+    }
+
+    private class DirectoryTask implements Callable<FileSystemLocationSnapshot> {
+        private final Path dir;
+        private final String internedName;
+        // The relative path of the entries of this directory
+        private final ImmutableList<String> relativePath;
+        // Used to detect file system loops through symbolic links
+        private final ImmutableList<Object> fileKeys;
+
+        DirectoryTask(Path dir, String internedName, ImmutableList<String> relativePath, ImmutableList<Object> fileKeys) {
+            this.dir = dir;
+            this.internedName = internedName;
+            this.relativePath = relativePath;
+            this.fileKeys = fileKeys;
+        }
+
+        @Override
+        public FileSystemLocationSnapshot call() {
+            List<Path> entries = new ArrayList<Path>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    entries.add(entry);
+                }
+            } catch (DirectoryIteratorException e) {
+                throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), e.getCause());
+            } catch (IOException e) {
+                return visitFailed(dir, internedName, relativePath.isEmpty() ? relativePath : relativePath.subList(0, relativePath.size() - 1));
+            }
+
+            List<DirectoryTask> directoryTasks = new ArrayList<DirectoryTask>();
+            List<FileBatchTask> fileTasks = new ArrayList<FileBatchTask>();
+            List<FileSystemLocationSnapshot> failed = new ArrayList<FileSystemLocationSnapshot>();
+            FileBatchTask currentBatch = null;
+            for (Path entry : entries) {
+                String internedEntryName = stringInterner.intern(entry.getFileName().toString());
+                BasicFileAttributes attrs = readAttributes(entry);
+                if (attrs == null) {
+                    FileSystemLocationSnapshot snapshot = visitFailed(entry, internedEntryName, relativePath);
+                    if (snapshot != null) {
+                        failed.add(snapshot);
+                    }
+                } else if (attrs.isDirectory()) {
+                    Object fileKey = fileKeyOf(entry, attrs);
+                    if (fileKeys.contains(fileKey)) {
+                        // File system loops are ignored, so that each file is included only once
+                        continue;
+                    }
+                    if (shouldVisit(entry, internedEntryName, true, attrs, relativePath)) {
+                        directoryTasks.add(new DirectoryTask(
+                            entry,
+                            internedEntryName,
+                            ImmutableList.<String>builder().addAll(relativePath).add(internedEntryName).build(),
+                            ImmutableList.builder().addAll(fileKeys).add(fileKey).build()
+                        ));
+                    }
+                } else if (shouldVisit(entry, internedEntryName, false, attrs, relativePath)) {
+                    if (currentBatch == null || currentBatch.isFull()) {
+                        currentBatch = new FileBatchTask();
+                        fileTasks.add(currentBatch);
+                    }
+                    currentBatch.add(entry, internedEntryName, attrs);
+                }
+            }
+
+            List<ForkedTask<FileSystemLocationSnapshot>> forkedDirectoryTasks = new ArrayList<ForkedTask<FileSystemLocationSnapshot>>(directoryTasks.size());
+            for (DirectoryTask directoryTask : directoryTasks) {
+                forkedDirectoryTasks.add(fork(directoryTask));
+            }
+            List<ForkedTask<List<FileSystemLocationSnapshot>>> forkedFileTasks = new ArrayList<ForkedTask<List<FileSystemLocationSnapshot>>>(fileTasks.size());
+            for (FileBatchTask fileTask : fileTasks) {
+                forkedFileTasks.add(fork(fileTask));
+            }
+
+            MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+            builder.preVisitDirectory(stringInterner.intern(dir.toString()), internedName);
+            for (ForkedTask<FileSystemLocationSnapshot> directoryTask : forkedDirectoryTasks) {
+                FileSystemLocationSnapshot snapshot = directoryTask.join();
+                if (snapshot != null) {
+                    builder.visitFile(snapshot);
+                }
+            }
+            for (ForkedTask<List<FileSystemLocationSnapshot>> fileTask : forkedFileTasks) {
+                for (FileSystemLocationSnapshot snapshot : fileTask.join()) {
+                    builder.visitFile(snapshot);
+                }
+            }
+            for (FileSystemLocationSnapshot snapshot : failed) {
+                builder.visitFile(snapshot);
+            }
+            builder.postVisitDirectory();
+            return builder.getResult();
+        }
+    }
+
+    private class FileBatchTask implements Callable<List<FileSystemLocationSnapshot>> {
+        private final List<Path> paths = new ArrayList<Path>(FILES_PER_TASK);
+        private final List<String> internedNames = new ArrayList<String>(FILES_PER_TASK);
+        private final List<BasicFileAttributes> attributes = new ArrayList<BasicFileAttributes>(FILES_PER_TASK);
+
+        void add(Path path, String internedName, BasicFileAttributes attrs) {
+            paths.add(path);
+            internedNames.add(internedName);
+            attributes.add(attrs);
+        }
+
+        boolean isFull() {
+            return paths.size() == FILES_PER_TASK;
+        }
+
+        @Override
+        public List<FileSystemLocationSnapshot> call() {
+            List<FileSystemLocationSnapshot> snapshots = new ArrayList<FileSystemLocationSnapshot>(paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                snapshots.add(DirectorySnapshotter.snapshotFile(paths.get(i), internedNames.get(i), attributes.get(i), hasher, stringInterner));
+            }
+            return snapshots;
+        }
+    }
+
+    /**
+     * A task handed to the executor, which is run by whichever comes first: a thread of the executor or the task waiting for its result.
+     */
+    private static class ForkedTask<T> implements Runnable {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final FutureTask<T> task;
+
+        ForkedTask(Callable<T> action) {
+            this.task = new FutureTask<T>(action);
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                task.run();
+            }
+        }
+
+        T join() {
+            run();
+            try {
+                return Uninterruptibles.getUninterruptibly(task);
+            } catch (ExecutionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+}
@@ -132,4 +132,74 @@ class DefaultFileSystemMirrorTest extends Specification {
         mirror.getMetadata(file.path) == null
         mirror.getSnapshot(file.path) == null
     }
+
+    def "retains state about selected locations at end of build"() {
+        def retained = tmpDir.file("retained/a")
+        def discarded = tmpDir.file("discarded/a")
+        def retainedSnapshot = Stub(RegularFileSnapshot)
+        def discardedSnapshot = Stub(RegularFileSnapshot)
+
+        given:
+        _ * retainedSnapshot.absolutePath >> retained.path
+        _ * discardedSnapshot.absolutePath >> discarded.path
+        mirror.putSnapshot(retainedSnapshot)
+        mirror.putSnapshot(discardedSnapshot)
+
+        when:
+        mirror.beforeBuildFinished { path -> path == retained.path }
+
+        then:
+        mirror.getSnapshot(retained.path) == retainedSnapshot
+        mirror.getSnapshot(discarded.path) == null
+    }
+
+    def "discards state about changed location, its ancestors and its descendants"() {
+        def dir = tmpDir.file("dir")
+        def changed = dir.file("changed")
+        def child = changed.file("child")
+        def sibling = dir.file("changed-sibling")
+        def snapshots = [dir, changed, child, sibling].collect { file ->
+            def snapshot = Stub(FileSystemLocationSnapshot)
+            _ * snapshot.absolutePath >> file.path
+            return snapshot
+        }
+
+        given:
+        snapshots.each { mirror.putSnapshot(it) }
+        mirror.putMetadata(child.path, Stub(FileMetadataSnapshot))
+
+        when:
+        mirror.changed([changed.path])
+
+        then:
+        mirror.getSnapshot(dir.path) == null
+        mirror.getSnapshot(changed.path) == null
+        mirror.getSnapshot(child.path) == null
+        mirror.getMetadata(child.path) == null
+        mirror.getSnapshot(sibling.path) == snapshots[3]
+    }
+
+    def "discards state only for changing outputs, their descendants and their ancestors"() {
+        def dir = tmpDir.file("build")
+        def output = dir.file("classes")
+        def outputFile = output.file("A.class")
+        def unrelated = tmpDir.file("src/A.java")
+        def snapshots = [dir, output, outputFile, unrelated].collectEntries { file ->
+            def snapshot = Stub(FileSystemLocationSnapshot)
+            _ * snapshot.absolutePath >> file.path
+            [(file): snapshot]
+        }
+
+        given:
+        snapshots.values().each { mirror.putSnapshot(it) }
+
+        when:
+        mirror.beforeOutputChange([output.path])
+
+        then:
+        mirror.getSnapshot(dir.path) == null
+        mirror.getSnapshot(output.path) == null
+        mirror.getSnapshot(outputFile.path) == null
+        mirror.getSnapshot(unrelated.path) == snapshots[unrelated]
+    }
 }
@@ -37,6 +37,7 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.Executors
 import java.util.concurrent.atomic.AtomicBoolean
 
 @UsesNativeServices
@@ -155,6 +156,44 @@ class DirectorySnapshotterTest extends Specification {
         ] as Set
     }
 
+    def "parallel snapshot is the same as sequential snapshot"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..150).each { rootDir.file("a/file${it}.txt").text = "content ${it}" }
+        rootDir.file("a/b/c.txt").text = "c"
+        rootDir.file("a/b/c.html").text = "html"
+        rootDir.file("d/e.txt").text = "e"
+        rootDir.file("subdir1/a/b/c.txt").text = "excluded"
+        rootDir.file(".git/config").text = "default excluded"
+
+        def patterns = new PatternSet()
+        patterns.include("**/*.txt")
+        patterns.exclude("subdir1/**")
+        def predicate = filtered ? directoryWalkerPredicate(patterns) : null
+        def executor = Executors.newFixedThreadPool(2)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), executor, DirectoryScanner.defaultExcludes)
+        def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), null, DirectoryScanner.defaultExcludes)
+        def parallelFiltered = new AtomicBoolean(false)
+        def sequentialFiltered = new AtomicBoolean(false)
+
+        when:
+        def parallel = parallelSnapshotter.snapshot(rootDir.absolutePath, predicate, parallelFiltered)
+        def sequential = sequentialSnapshotter.snapshot(rootDir.absolutePath, predicate, sequentialFiltered)
+
+        then:
+        parallel.hash == sequential.hash
+        visitedPaths(parallel) == visitedPaths(sequential)
+        parallelFiltered.get() == sequentialFiltered.get()
+        parallelFiltered.get() == filtered
+        !visitedPaths(parallel).any { it.contains(".git") }
+
+        cleanup:
+        executor.shutdown()
+
+        where:
+        filtered << [false, true]
+    }
+
     @Requires(TestPrecondition.FILE_PERMISSIONS)
     def "broken symlinks are snapshotted as missing"() {
         def rootDir = tmpDir.createDir("root")
@@ -237,6 +276,17 @@ class DirectorySnapshotterTest extends Specification {
         !defaultExcludes.excludeFile('#some')
     }
 
+    private static List<String> visitedPaths(FileSystemLocationSnapshot snapshot) {
+        def visited = []
+        snapshot.accept(new RelativePathTrackingVisitor() {
+            @Override
+            void visit(String absolutePath, Deque<String> relativePath) {
+                visited << relativePath.join("/")
+            }
+        })
+        return visited
+    }
+
     private static String fileSystemRoot() {
         "${Paths.get("").toAbsolutePath().root}"
     }
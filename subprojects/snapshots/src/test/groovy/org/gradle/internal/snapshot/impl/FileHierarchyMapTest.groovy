@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FileHierarchyMapTest extends Specification {
+    def map = new FileHierarchyMap<String>('/' as char)
+
+    def "invalidates location, its descendants and its ancestors"() {
+        given:
+        ["/", "/a", "/a/b", "/a/b/c", "/a/b/c/d", "/a/bc", "/a/b-c", "/a/x", "/ab"].each { map.put(it, it) }
+
+        when:
+        map.invalidate("/a/b")
+
+        then:
+        ["/", "/a", "/a/b", "/a/b/c", "/a/b/c/d"].every { map.get(it) == null }
+        ["/a/bc", "/a/b-c", "/a/x", "/ab"].every { map.get(it) == it }
+    }
+
+    def "invalidating the root removes everything"() {
+        given:
+        ["/", "/a", "/a/b"].each { map.put(it, it) }
+
+        when:
+        map.invalidate("/")
+
+        then:
+        map.empty
+    }
+
+    @Unroll
+    def "finds entry for #path or below it"() {
+        given:
+        ["/a/b/c", "/ab"].each { map.put(it, it) }
+
+        expect:
+        map.containsSelfOrDescendant(path) == selfOrDescendant
+        map.containsAncestor(path) == ancestor
+
+        where:
+        path       | selfOrDescendant | ancestor
+        "/"        | true             | false
+        "/a"       | true             | false
+        "/a/b"     | true             | false
+        "/a/b/c"   | true             | false
+        "/a/b/c/d" | false            | true
+        "/a/bc"    | false            | false
+        "/ab/c"    | false            | true
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides read access to the test output data file, which is complete and no longer changes once it is read.
+ *
+ * <p>The file is either mapped into memory, in fixed size regions, or read using positional reads. In both cases, any number of streams can read from the file concurrently.</p>
+ */
+class TestOutputDataFile implements Closeable {
+    // Map the file in regions, so that files larger than a single buffer can be mapped
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long length;
+    private final List<ByteBuffer> regions;
+
+    TestOutputDataFile(File dataFile, boolean mapped) throws IOException {
+        file = new RandomAccessFile(dataFile, "r");
+        try {
+            channel = file.getChannel();
+            length = channel.size();
+            if (mapped) {
+                regions = new ArrayList<ByteBuffer>();
+                for (long offset = 0; offset < length; offset += REGION_SIZE) {
+                    regions.add(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(REGION_SIZE, length - offset)));
+                }
+            } else {
+                regions = null;
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a stream that reads from the given offset. The stream supports efficiently skipping forward.
+     */
+    InputStream openAt(long offset) {
+        return regions == null ? new ChannelInputStream(offset) : new MappedInputStream(offset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapped regions are released when they are garbage collected
+        file.close();
+    }
+
+    private abstract class OffsetInputStream extends InputStream {
+        long position;
+
+        OffsetInputStream(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int count = read(buffer, 0, 1);
+            return count < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int count = doRead(bytes, off, (int) Math.min(len, length - position));
+            position += count;
+            return count;
+        }
+
+        protected abstract int doRead(byte[] bytes, int off, int len) throws IOException;
+
+        @Override
+        public long skip(long count) {
+            long skipped = Math.max(0, Math.min(count, length - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+    }
+
+    private class MappedInputStream extends OffsetInputStream {
+        MappedInputStream(long position) {
+            super(position);
+        }
+
+        @Override
+        protected int doRead(byte[] bytes, int off, int len) {
+            int index = (int) (position / REGION_SIZE);
+            ByteBuffer region = regions.get(index).duplicate();
+            // Cast needed for running on Java 8 when compiled with Java 9+
+            ((Buffer) region).position((int) (position - (long) index * REGION_SIZE));
+            int count = Math.min(len, region.remaining());
+            region.get(bytes, off, count);
+            return count;
+        }
+    }
+
+    private class ChannelInputStream extends OffsetInputStream {
+        ChannelInputStream(long position) {
+            super(position);
+        }
+
+        @Override
+        protected int doRead(byte[] bytes, int off, int len) throws IOException {
+            int count = channel.read(ByteBuffer.wrap(bytes, off, len), position);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            return count;
+        }
+    }
+}
@@ -21,16 +21,20 @@
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Stores the output of tests in a data file, along with an index file that contains the offsets of the output events of each test.
+ */
 public class TestOutputStore {
 
     private final File resultsDir;
@@ -49,30 +53,113 @@ File getIndexFile() {
         return new File(resultsDir, getOutputsFile().getName() + ".idx");
     }
 
-    private static class Region {
-        long start;
-        long stop;
+    /**
+     * The offsets of a sequence of output events, in ascending order. Each offset is encoded as a variable length delta from the previous offset, as there can be very many events.
+     */
+    private static class Offsets {
+        private static final long[] EMPTY = new long[0];
+
+        private byte[] encoded;
+        private int encodedLength;
+        private int count;
+        private long last;
+
+        private Offsets() {
+            this.encoded = new byte[16];
+        }
+
+        private Offsets(byte[] encoded, int count) {
+            this.encoded = encoded;
+            this.encodedLength = encoded.length;
+            this.count = count;
+        }
+
+        void add(long offset) {
+            if (encodedLength + 10 > encoded.length) {
+                encoded = Arrays.copyOf(encoded, encoded.length * 2);
+            }
+            long delta = offset - last;
+            while ((delta & ~0x7FL) != 0) {
+                encoded[encodedLength++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            encoded[encodedLength++] = (byte) delta;
+            last = offset;
+            count++;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        int size() {
+            return count;
+        }
 
-        private Region() {
-            start = -1;
-            stop = -1;
+        void write(Output output) {
+            output.writeInt(count, true);
+            output.writeInt(encodedLength, true);
+            output.writeBytes(encoded, 0, encodedLength);
         }
 
-        private Region(long start, long stop) {
-            this.start = start;
-            this.stop = stop;
+        static Offsets read(Input input) {
+            int count = input.readInt(true);
+            byte[] encoded = input.readBytes(input.readInt(true));
+            return new Offsets(encoded, count);
+        }
+
+        /**
+         * Decodes the offsets into the given array, starting at the given position.
+         */
+        void decodeInto(long[] target, int start) {
+            long offset = 0;
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = encoded[pos++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                offset += delta;
+                target[start + i] = offset;
+            }
+        }
+
+        long[] decode() {
+            if (count == 0) {
+                return EMPTY;
+            }
+            long[] offsets = new long[count];
+            decodeInto(offsets, 0);
+            return offsets;
         }
     }
 
-    private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
+    private static class TestCaseOffsets {
+        final Offsets stdOut;
+        final Offsets stdErr;
+
+        TestCaseOffsets() {
+            this(new Offsets(), new Offsets());
+        }
+
+        TestCaseOffsets(Offsets stdOut, Offsets stdErr) {
+            this.stdOut = stdOut;
+            this.stdErr = stdErr;
+        }
+
+        Offsets get(boolean stdout) {
+            return stdout ? stdOut : stdErr;
+        }
     }
 
     public class Writer implements Closeable {
         private final KryoBackedEncoder output;
 
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, Map<Long, TestCaseOffsets>> index = new LinkedHashMap<Long, Map<Long, TestCaseOffsets>>();
 
         public Writer() {
             try {
@@ -111,25 +198,19 @@ public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
         }
 
         private void mark(long classId, long testId, boolean isStdout) {
-            if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
+            Map<Long, TestCaseOffsets> testCaseOffsets = index.get(classId);
+            if (testCaseOffsets == null) {
+                testCaseOffsets = new LinkedHashMap<Long, TestCaseOffsets>();
+                index.put(classId, testCaseOffsets);
             }
 
-            Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
-            if (!testCaseRegions.containsKey(testId)) {
-                TestCaseRegion region = new TestCaseRegion();
-                testCaseRegions.put(testId, region);
+            TestCaseOffsets offsets = testCaseOffsets.get(testId);
+            if (offsets == null) {
+                offsets = new TestCaseOffsets();
+                testCaseOffsets.put(testId, offsets);
             }
 
-            TestCaseRegion region = testCaseRegions.get(testId);
-
-            Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
-
-            long total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
-            }
-            streamRegion.stop = total;
+            offsets.get(isStdout).add(output.getWritePosition());
         }
 
         private void writeIndex() {
@@ -140,25 +221,22 @@ private void writeIndex() {
                 throw new UncheckedIOException(e);
             }
 
-
             try {
                 indexOutput.writeInt(index.size(), true);
 
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
+                for (Map.Entry<Long, Map<Long, TestCaseOffsets>> classEntry : index.entrySet()) {
                     Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
+                    Map<Long, TestCaseOffsets> tests = classEntry.getValue();
 
                     indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
+                    indexOutput.writeInt(tests.size(), true);
 
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
+                    for (Map.Entry<Long, TestCaseOffsets> testCaseEntry : tests.entrySet()) {
                         long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
+                        TestCaseOffsets offsets = testCaseEntry.getValue();
                         indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
+                        offsets.stdOut.write(indexOutput);
+                        offsets.stdErr.write(indexOutput);
                     }
                 }
             } finally {
@@ -171,55 +249,30 @@ public Writer writer() {
         return new Writer();
     }
 
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
-
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
-        }
-
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
-        }
-    }
-
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
-
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
-
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
+    private static class ClassIndex {
+        final ImmutableMap<Long, TestCaseOffsets> tests;
+        final boolean hasStdOut;
+        final boolean hasStdErr;
+
+        private ClassIndex(ImmutableMap<Long, TestCaseOffsets> tests) {
+            this.tests = tests;
+            boolean hasStdOut = false;
+            boolean hasStdErr = false;
+            for (TestCaseOffsets offsets : tests.values()) {
+                hasStdOut |= !offsets.stdOut.isEmpty();
+                hasStdErr |= !offsets.stdErr.isEmpty();
             }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
-            }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
-            }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
-            }
-
-            children.put(key, index);
-        }
-
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+            this.hasStdOut = hasStdOut;
+            this.hasStdErr = hasStdErr;
         }
     }
 
+    /**
+     * Reads the output of tests. A reader can be used by multiple threads concurrently.
+     */
     public class Reader implements Closeable {
-        private final Index index;
-        private final RandomAccessFile dataFile;
+        private final ImmutableMap<Long, ClassIndex> index;
+        private final TestOutputDataFile dataFile;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -237,24 +290,23 @@ public Reader() {
                     throw new UncheckedIOException(e);
                 }
 
-                IndexBuilder rootBuilder = null;
+                ImmutableMap.Builder<Long, ClassIndex> rootBuilder = ImmutableMap.builder();
                 try {
                     int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
 
                     for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
                         long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
+                        ImmutableMap.Builder<Long, TestCaseOffsets> classBuilder = ImmutableMap.builder();
 
                         int numEntries = input.readInt(true);
                         for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
                             long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
+                            Offsets stdOut = Offsets.read(input);
+                            Offsets stdErr = Offsets.read(input);
+                            classBuilder.put(testId, new TestCaseOffsets(stdOut, stdErr));
                         }
 
-                        rootBuilder.add(classId, classBuilder.build());
+                        rootBuilder.put(classId, new ClassIndex(classBuilder.build()));
                     }
                 } finally {
                     input.close();
@@ -263,8 +315,9 @@ public Reader() {
                 index = rootBuilder.build();
 
                 try {
-                    dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
+                    // Mapped files cannot be deleted on Windows until the mapping is garbage collected
+                    dataFile = new TestOutputDataFile(outputsFile, !OperatingSystem.current().isWindows());
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -289,12 +342,11 @@ public boolean hasOutput(long classId, TestOutputEvent.Destination destination)
                 return false;
             }
 
-            Index classIndex = index.children.get(classId);
+            ClassIndex classIndex = index.get(classId);
             if (classIndex == null) {
                 return false;
             } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? classIndex.stdOut : classIndex.stdErr;
-                return region.start >= 0;
+                return destination == TestOutputEvent.Destination.StdOut ? classIndex.hasStdOut : classIndex.hasStdErr;
             }
         }
 
@@ -315,72 +367,69 @@ private void doRead(long classId, long testId, boolean allClassOutput, TestOutpu
                 return;
             }
 
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
-
-            if (targetIndex == null) {
+            ClassIndex classIndex = index.get(classId);
+            if (classIndex == null) {
                 return;
             }
 
             boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
+            long[] offsets;
+            if (allClassOutput) {
+                offsets = allOffsets(classIndex, stdout);
+            } else {
+                TestCaseOffsets testCaseOffsets = classIndex.tests.get(testId);
+                if (testCaseOffsets == null) {
+                    return;
+                }
+                offsets = testCaseOffsets.get(stdout).decode();
+            }
 
-            if (region.start < 0) {
+            if (offsets.length == 0) {
                 return;
             }
 
-            boolean ignoreClassLevel = !allClassOutput && testId != 0;
-            boolean ignoreTestLevel = !allClassOutput && testId == 0;
-
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
+                long start = offsets[0];
+                KryoBackedDecoder decoder = new KryoBackedDecoder(dataFile.openAt(start));
+                byte[] stringBytes = new byte[256];
+                for (long offset : offsets) {
+                    // Offsets are ascending, so only skip forward over the output of other tests
+                    decoder.skipBytes(offset - start - decoder.getReadPosition());
                     boolean readStdout = decoder.readBoolean();
                     long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
+                    decoder.readSmallLong();
                     int readLength = decoder.readSmallInt();
-
-                    boolean isClassLevel = readTestId == 0;
-
                     if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
+                        throw new IllegalStateException(String.format("Test outputs data file '%s' does not match its index file '%s'.", getOutputsFile(), getIndexFile()));
                     }
 
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
-
-                        writer.write(message);
-                    } else {
-                        decoder.skipBytes(readLength);
+                    if (readLength > stringBytes.length) {
+                        stringBytes = new byte[Math.max(readLength, stringBytes.length * 2)];
                     }
+                    decoder.readBytes(stringBytes, 0, readLength);
+                    writer.write(new String(stringBytes, 0, readLength, messageStorageCharset));
                 }
             } catch (IOException e1) {
                 throw new UncheckedIOException(e1);
             }
         }
+
+        private long[] allOffsets(ClassIndex classIndex, boolean stdout) {
+            int count = 0;
+            for (TestCaseOffsets testCaseOffsets : classIndex.tests.values()) {
+                count += testCaseOffsets.get(stdout).size();
+            }
+            long[] offsets = new long[count];
+            int pos = 0;
+            for (TestCaseOffsets testCaseOffsets : classIndex.tests.values()) {
+                Offsets testOffsets = testCaseOffsets.get(stdout);
+                testOffsets.decodeInto(offsets, pos);
+                pos += testOffsets.size();
+            }
+            // Restore the order in which the output was written
+            Arrays.sort(offsets);
+            return offsets;
+        }
     }
 
     // IMPORTANT: return must be closed when done with.
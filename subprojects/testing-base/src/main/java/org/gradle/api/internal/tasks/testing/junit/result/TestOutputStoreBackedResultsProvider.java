@@ -16,38 +16,35 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
-import com.google.common.collect.Maps;
 import org.gradle.api.Action;
-import org.gradle.internal.concurrent.CompositeStoppable;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentMap;
 
 public abstract class TestOutputStoreBackedResultsProvider implements TestResultsProvider {
     private final TestOutputStore outputStore;
-    private final ConcurrentMap<Thread, TestOutputStore.Reader> readers;
+    private TestOutputStore.Reader reader;
 
     public TestOutputStoreBackedResultsProvider(TestOutputStore outputStore) {
         this.outputStore = outputStore;
-        this.readers = Maps.newConcurrentMap();
     }
 
     protected void withReader(Action<TestOutputStore.Reader> action) {
         action.execute(getReader());
     }
 
-    private TestOutputStore.Reader getReader() {
-        Thread thread = Thread.currentThread();
-        TestOutputStore.Reader reader = readers.get(thread);
+    // The reader can be used by multiple threads, so all threads share the index and the data file
+    private synchronized TestOutputStore.Reader getReader() {
         if (reader == null) {
             reader = outputStore.reader();
-            readers.put(thread, reader);
         }
         return reader;
     }
 
     @Override
-    public void close() throws IOException {
-        CompositeStoppable.stoppable(readers.values()).stop();
+    public synchronized void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
     }
 }
@@ -26,19 +26,28 @@
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.dispatch.DispatchException;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * processors, or when the durations of the test classes are known, assigns each test class to the processor with the
+ * least estimated amount of work assigned.
+ *
+ * <p>When a {@link SharedTestClassQueue} is provided, only the first test class of each processor is assigned to it,
+ * and the remaining test classes are added to the queue, from which the processors take them as they become ready.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final TestClassDurations durations;
+    private final SharedTestClassQueue testClassQueue;
     private TestResultProcessor resultProcessor;
     private int pos;
+    private List<Long> assignedDurations = new ArrayList<Long>();
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
@@ -46,9 +55,15 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, new TestClassDurations(Collections.<String, Long>emptyMap()), null);
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, TestClassDurations durations, @Nullable SharedTestClassQueue testClassQueue) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.durations = durations;
+        this.testClassQueue = testClassQueue;
     }
 
     @Override
@@ -72,16 +87,38 @@ public void processTestClass(TestClassRunInfo testClass) {
             processor = actor.getProxy(TestClassProcessor.class);
             actors.add(actor);
             processors.add(processor);
+            assignedDurations.add(0L);
+            pos = processors.size() - 1;
             processor.startProcessing(resultProcessor);
+        } else if (testClassQueue != null) {
+            testClassQueue.add(testClass);
+            return;
+        } else if (durations.isEmpty()) {
+            pos = (pos + 1) % processors.size();
+            processor = processors.get(pos);
         } else {
+            pos = leastLoadedProcessor();
             processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
         }
+        assignedDurations.set(pos, assignedDurations.get(pos) + durations.estimate(testClass.getTestClassName()));
         processor.processTestClass(testClass);
     }
 
+    private int leastLoadedProcessor() {
+        int leastLoaded = 0;
+        for (int i = 1; i < assignedDurations.size(); i++) {
+            if (assignedDurations.get(i) < assignedDurations.get(leastLoaded)) {
+                leastLoaded = i;
+            }
+        }
+        return leastLoaded;
+    }
+
     @Override
     public void stop() {
+        if (testClassQueue != null) {
+            testClassQueue.complete();
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
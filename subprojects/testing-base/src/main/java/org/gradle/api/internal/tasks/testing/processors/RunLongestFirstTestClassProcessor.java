@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Passes test classes to its delegate in the order of their estimated duration, longest first, so that the
+ * shortest test classes are left to fill the gaps between parallel processors at the end of the run.
+ */
+public class RunLongestFirstTestClassProcessor implements TestClassProcessor {
+    private final TestClassDurations durations;
+    private final TestClassProcessor delegate;
+    private final List<TestClassRunInfo> testClasses = new ArrayList<TestClassRunInfo>();
+
+    public RunLongestFirstTestClassProcessor(TestClassDurations durations, TestClassProcessor delegate) {
+        this.durations = durations;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        testClasses.add(testClass);
+    }
+
+    @Override
+    public void stop() {
+        // The sort is stable, so classes with the same estimate keep the order in which they were found
+        Collections.sort(testClasses, new Comparator<TestClassRunInfo>() {
+            @Override
+            public int compare(TestClassRunInfo o1, TestClassRunInfo o2) {
+                long duration1 = durations.estimate(o1.getTestClassName());
+                long duration2 = durations.estimate(o2.getTestClassName());
+                return duration1 > duration2 ? -1 : duration1 < duration2 ? 1 : 0;
+            }
+        });
+        for (TestClassRunInfo testClass : testClasses) {
+            delegate.processTestClass(testClass);
+        }
+        delegate.stop();
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A queue of test classes that is shared by several workers. Rather than being assigned test classes up front, each
+ * worker requests the next test class when it is ready for it, so that the test classes end up spread across the
+ * workers according to how fast each worker gets through its test classes.
+ */
+public class SharedTestClassQueue {
+    private final Lock lock = new ReentrantLock();
+    private final Deque<TestClassRunInfo> testClasses = new ArrayDeque<TestClassRunInfo>();
+    private final Deque<Worker> pendingRequests = new ArrayDeque<Worker>();
+    private final Set<Worker> finishedWorkers = new HashSet<Worker>();
+    private boolean complete;
+
+    /**
+     * Adds a test class to the queue, or hands it directly to a worker that is waiting for a test class.
+     */
+    public void add(TestClassRunInfo testClass) {
+        lock.lock();
+        try {
+            if (complete) {
+                throw new IllegalStateException("Cannot add a test class after the queue has been completed.");
+            }
+            Worker worker = pendingRequests.poll();
+            if (worker == null) {
+                testClasses.add(testClass);
+            } else {
+                worker.processTestClass(testClass);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Signals that no more test classes will be added. Workers are told there is no more work once the queue is empty.
+     */
+    public void complete() {
+        lock.lock();
+        try {
+            complete = true;
+            for (Worker worker : pendingRequests) {
+                finish(worker);
+            }
+            pendingRequests.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Requests the next test class for the given worker. The test class is handed to the worker when one is available.
+     */
+    public void request(Worker worker) {
+        lock.lock();
+        try {
+            if (finishedWorkers.contains(worker)) {
+                return;
+            }
+            TestClassRunInfo testClass = testClasses.poll();
+            if (testClass != null) {
+                worker.processTestClass(testClass);
+            } else if (complete) {
+                finish(worker);
+            } else {
+                pendingRequests.add(worker);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops handing test classes to the given worker, for example because the worker has been stopped.
+     */
+    public void remove(Worker worker) {
+        lock.lock();
+        try {
+            finishedWorkers.add(worker);
+            for (Iterator<Worker> iterator = pendingRequests.iterator(); iterator.hasNext();) {
+                if (iterator.next() == worker) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finish(Worker worker) {
+        if (finishedWorkers.add(worker)) {
+            worker.endOfTestClasses();
+        }
+    }
+
+    /**
+     * A worker that takes test classes from the queue. Methods are called while holding the lock of the queue, so they should not block.
+     */
+    public interface Worker {
+        void processTestClass(TestClassRunInfo testClass);
+
+        /**
+         * Called once, when the queue has been completed and there are no test classes left for the worker.
+         */
+        void endOfTestClasses();
+    }
+}
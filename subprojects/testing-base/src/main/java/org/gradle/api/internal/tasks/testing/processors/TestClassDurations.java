@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import java.util.Map;
+
+/**
+ * Estimates how long each test class will take to run, based on the durations of the test classes in a previous run.
+ * Test classes that did not run previously are assumed to take the average duration of the classes that did.
+ */
+public class TestClassDurations {
+    private final Map<String, Long> previousDurations;
+    private final long averageDuration;
+
+    public TestClassDurations(Map<String, Long> previousDurations) {
+        this.previousDurations = previousDurations;
+        long total = 0;
+        for (Long duration : previousDurations.values()) {
+            total += duration;
+        }
+        this.averageDuration = previousDurations.isEmpty() ? 0 : total / previousDurations.size();
+    }
+
+    public boolean isEmpty() {
+        return previousDurations.isEmpty();
+    }
+
+    public long estimate(String testClassName) {
+        Long duration = previousDurations.get(testClassName);
+        return duration == null ? averageDuration : duration;
+    }
+}
@@ -23,6 +23,7 @@
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.processors.SharedTestClassQueue;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
@@ -32,6 +33,7 @@
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
 import java.util.List;
@@ -46,6 +48,8 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final SharedTestClassQueue testClassQueue;
+    private final SharedTestClassQueue.Worker queueWorker = new QueueWorker();
     private final Lock lock = new ReentrantLock();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
@@ -55,6 +59,14 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private boolean stoppedNow;
 
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, documentationRegistry, null);
+    }
+
+    /**
+     * @param testClassQueue When not null, the forked worker requests further test classes from this queue once it has finished the test classes passed to {@link #processTestClass(TestClassRunInfo)}, and is stopped when the queue runs out of test classes.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, @Nullable SharedTestClassQueue testClassQueue) {
+        this.testClassQueue = testClassQueue;
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -96,7 +108,7 @@ public void processTestClass(TestClassRunInfo testClass) {
     }
 
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
+        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory, testClassQueue != null));
         builder.setBaseName("Gradle Test Executor");
         builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
         builder.applicationClasspath(classPath);
@@ -110,6 +122,14 @@ RemoteTestClassProcessor forkProcess() {
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        if (testClassQueue != null) {
+            connection.addIncoming(RemoteTestClassQueue.class, new RemoteTestClassQueue() {
+                @Override
+                public void requestTestClass() {
+                    testClassQueue.request(queueWorker);
+                }
+            });
+        }
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
@@ -150,7 +170,8 @@ public void stop() {
             if (remoteProcessor != null) {
                 lock.lock();
                 try {
-                    if (!stoppedNow) {
+                    // When pulling test classes from the queue, the worker is stopped once the queue runs out of test classes
+                    if (!stoppedNow && testClassQueue == null) {
                         remoteProcessor.stop();
                     }
                 } finally {
@@ -174,6 +195,10 @@ public void stop() {
 
     @Override
     public void stopNow() {
+        if (testClassQueue != null) {
+            // Do not hold the lock, as the queue calls back into this processor while holding its own lock
+            testClassQueue.remove(queueWorker);
+        }
         lock.lock();
         try {
             stoppedNow = true;
@@ -184,4 +209,30 @@ public void stopNow() {
             lock.unlock();
         }
     }
+
+    private class QueueWorker implements SharedTestClassQueue.Worker {
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            lock.lock();
+            try {
+                if (!stoppedNow) {
+                    remoteProcessor.processTestClass(testClass);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void endOfTestClasses() {
+            lock.lock();
+            try {
+                if (!stoppedNow) {
+                    remoteProcessor.stop();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 }
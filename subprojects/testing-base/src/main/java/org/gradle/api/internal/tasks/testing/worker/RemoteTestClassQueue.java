@@ -0,0 +1,29 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+/**
+ * The queue of test classes that a test worker pulls its test classes from, when test classes are not pushed to the worker up front.
+ */
+public interface RemoteTestClassQueue {
+    /**
+     * Called by the worker when it has finished a test class. Requests that another test class is sent to the worker, or that the worker is stopped when there are no more test classes.
+     *
+     * Does not block.
+     */
+    void requestTestClass();
+}
@@ -47,12 +47,23 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
     private final WorkerTestClassProcessorFactory factory;
+    private final boolean pullTestClasses;
     private CountDownLatch completed;
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private RemoteTestClassQueue testClassQueue;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
+        this(factory, false);
+    }
+
+    /**
+     * @param pullTestClasses When true, the worker requests another test class from the {@link RemoteTestClassQueue} of the build process whenever it has finished a test class.
+     * Requires a test class processor that runs each test class when it receives it.
+     */
+    public TestWorker(WorkerTestClassProcessorFactory factory, boolean pullTestClasses) {
         this.factory = factory;
+        this.pullTestClasses = pullTestClasses;
     }
 
     @Override
@@ -101,6 +112,9 @@ private void startReceivingTests(WorkerProcessContext workerProcessContext, Serv
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
         this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        if (pullTestClasses) {
+            this.testClassQueue = serverConnection.addOutgoing(RemoteTestClassQueue.class);
+        }
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -116,6 +130,9 @@ public void processTestClass(final TestClassRunInfo testClass) {
         Thread.currentThread().setName("Test worker");
         try {
             processor.processTestClass(testClass);
+            if (testClassQueue != null) {
+                testClassQueue.requestTestClass();
+            }
         } catch (AccessControlException e) {
             completed.countDown();
             throw e;
@@ -79,7 +79,11 @@
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
@@ -526,26 +530,52 @@ protected List<String> getNoMatchingTestErrorReasons() {
     }
 
     private void createReporting(Map<String, TestClassResult> results, TestOutputStore testOutputStore) {
-        TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore);
+        final TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore);
 
         try {
             if (testReporter == null) {
                 testReporter = new DefaultTestReport(getBuildOperationExecutor());
             }
 
-            JUnitXmlReport junitXml = reports.getJunitXml();
-            if (junitXml.isEnabled()) {
-                TestOutputAssociation outputAssociation = junitXml.isOutputPerTestCase()
-                    ? TestOutputAssociation.WITH_TESTCASE
-                    : TestOutputAssociation.WITH_SUITE;
-                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), testResultsProvider, outputAssociation, getBuildOperationExecutor(), getInetAddressFactory().getHostname());
-                binary2JUnitXmlReportGenerator.generate();
-            }
-
-            DirectoryReport html = reports.getHtml();
+            final JUnitXmlReport junitXml = reports.getJunitXml();
+            final DirectoryReport html = reports.getHtml();
             if (!html.isEnabled()) {
                 getLogger().info("Test report disabled, omitting generation of the HTML test report.");
-            } else {
+            }
+
+            if (junitXml.isEnabled() && html.isEnabled()) {
+                // The reports are independent, so generate them concurrently, so that the sequential parts of one report overlap with the other
+                final TestReporter reporter = testReporter;
+                getBuildOperationExecutor().runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+                    @Override
+                    public void execute(BuildOperationQueue<RunnableBuildOperation> queue) {
+                        queue.add(new RunnableBuildOperation() {
+                            @Override
+                            public void run(BuildOperationContext context) {
+                                generateJUnitXmlReport(junitXml, testResultsProvider);
+                            }
+
+                            @Override
+                            public BuildOperationDescriptor.Builder description() {
+                                return BuildOperationDescriptor.displayName("Generate JUnit XML test results");
+                            }
+                        });
+                        queue.add(new RunnableBuildOperation() {
+                            @Override
+                            public void run(BuildOperationContext context) {
+                                reporter.generateReport(testResultsProvider, html.getDestination());
+                            }
+
+                            @Override
+                            public BuildOperationDescriptor.Builder description() {
+                                return BuildOperationDescriptor.displayName("Generate HTML test report");
+                            }
+                        });
+                    }
+                });
+            } else if (junitXml.isEnabled()) {
+                generateJUnitXmlReport(junitXml, testResultsProvider);
+            } else if (html.isEnabled()) {
                 testReporter.generateReport(testResultsProvider, html.getDestination());
             }
         } finally {
@@ -554,6 +584,14 @@ private void createReporting(Map<String, TestClassResult> results, TestOutputSto
         }
     }
 
+    private void generateJUnitXmlReport(JUnitXmlReport junitXml, TestResultsProvider testResultsProvider) {
+        TestOutputAssociation outputAssociation = junitXml.isOutputPerTestCase()
+            ? TestOutputAssociation.WITH_TESTCASE
+            : TestOutputAssociation.WITH_SUITE;
+        Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), testResultsProvider, outputAssociation, getBuildOperationExecutor(), getInetAddressFactory().getHostname());
+        binary2JUnitXmlReportGenerator.generate();
+    }
+
     /**
      * Sets the test name patterns to be included in execution.
      * Classes or method names are supported, wildcard '*' is supported.
@@ -20,6 +20,8 @@ import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
 import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.test.fixtures.file.WorkspaceTest
 
+import java.util.concurrent.ConcurrentHashMap
+
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
 
@@ -98,6 +100,45 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "output for class includes events of tests that first wrote to another destination"() {
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdErr, "[err-1]"))
+        writer.onOutput(1, 2, output(StdOut, "[out-1]"))
+        writer.onOutput(1, output(StdOut, "[out-2]"))
+        writer.onOutput(1, 1, output(StdOut, "[out-3]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectAllOutput(reader, 1, StdOut) == "[out-1][out-2][out-3]"
+        collectOutput(reader, 1, StdOut) == "[out-2]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reader can be used by multiple threads"() {
+        when:
+        def writer = output.writer()
+        100.times { classId ->
+            1000.times { writer.onOutput(classId, it % 10, output(StdOut, "[$classId-$it]")) }
+        }
+        writer.close()
+        def reader = output.reader()
+        def outputs = new ConcurrentHashMap<Long, String>()
+        (0..<100).collect { classId ->
+            Thread.start { outputs.put(classId as Long, collectAllOutput(reader, classId, StdOut)) }
+        }*.join()
+
+        then:
+        outputs.size() == 100
+        (0..<100).every { classId -> outputs[classId as Long] == (0..<1000).collect { "[$classId-$it]" }.join() }
+
+        cleanup:
+        reader.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }
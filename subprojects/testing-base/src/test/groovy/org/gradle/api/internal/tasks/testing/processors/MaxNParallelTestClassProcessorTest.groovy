@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
@@ -168,6 +169,31 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.processTestClass(test)
     }
 
+    def assignsTestClassesToLeastLoadedProcessorWhenDurationsAreKnown() {
+        def durations = new TestClassDurations([Long: 100L, Short1: 10L, Short2: 10L, Short3: 10L])
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, durations, null)
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        factory.create() >>> [processor1, processor2]
+        actorFactory.createActor(processor1) >> actor1
+        actorFactory.createActor(processor2) >> actor2
+        actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+
+        when:
+        ['Long', 'Short1', 'Short2', 'Short3'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('Long'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Short1'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Short2'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Short3'))
+    }
+
     def "stopNow propagates to factory created processors"() {
         TestClassRunInfo test = Mock()
         TestClassProcessor processor1 = Mock()
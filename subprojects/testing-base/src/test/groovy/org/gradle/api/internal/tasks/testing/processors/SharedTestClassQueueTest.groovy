@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import spock.lang.Specification
+
+class SharedTestClassQueueTest extends Specification {
+    def queue = new SharedTestClassQueue()
+    def worker1 = Mock(SharedTestClassQueue.Worker)
+    def worker2 = Mock(SharedTestClassQueue.Worker)
+
+    def "hands queued test classes to workers in order of request"() {
+        given:
+        queue.add(new DefaultTestClassRunInfo('Class1'))
+        queue.add(new DefaultTestClassRunInfo('Class2'))
+
+        when:
+        queue.request(worker2)
+        queue.request(worker1)
+
+        then:
+        1 * worker2.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        then:
+        1 * worker1.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        0 * _
+    }
+
+    def "hands added test class to waiting worker"() {
+        when:
+        queue.request(worker1)
+
+        then:
+        0 * _
+
+        when:
+        queue.add(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        1 * worker1.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        0 * _
+    }
+
+    def "ends waiting workers once when the queue is completed"() {
+        given:
+        queue.request(worker1)
+        queue.request(worker1)
+
+        when:
+        queue.complete()
+        queue.request(worker1)
+
+        then:
+        1 * worker1.endOfTestClasses()
+        0 * _
+    }
+
+    def "hands remaining test classes to workers after the queue is completed"() {
+        given:
+        queue.add(new DefaultTestClassRunInfo('Class1'))
+        queue.complete()
+
+        when:
+        queue.request(worker1)
+        queue.request(worker1)
+
+        then:
+        1 * worker1.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        then:
+        1 * worker1.endOfTestClasses()
+        0 * _
+    }
+
+    def "does not hand test classes to removed worker"() {
+        given:
+        queue.request(worker1)
+        queue.remove(worker1)
+
+        when:
+        queue.add(new DefaultTestClassRunInfo('Class1'))
+        queue.request(worker1)
+        queue.complete()
+
+        then:
+        0 * _
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.api.internal.tasks.testing.processors.SharedTestClassQueue
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.remote.ObjectConnection
 import org.gradle.internal.work.WorkerLeaseRegistry
@@ -123,6 +124,38 @@ class ForkingTestClassProcessorTest extends Specification {
         notThrown(ExecException)
     }
 
+    def "worker pulling test classes from queue is stopped when the queue runs out of test classes"() {
+        def queue = new SharedTestClassQueue()
+        def connection = Mock(ObjectConnection)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        RemoteTestClassQueue remoteQueue = null
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, queue)
+        def test1 = Mock(TestClassRunInfo)
+        def test2 = Mock(TestClassRunInfo)
+
+        setup:
+        workerProcess.getConnection() >> connection
+        connection.addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+        connection.addIncoming(RemoteTestClassQueue, _) >> { remoteQueue = it[1] }
+
+        when:
+        processor.processTestClass(test1)
+        queue.add(test2)
+        remoteQueue.requestTestClass()
+        queue.complete()
+        remoteQueue.requestTestClass()
+        processor.stop()
+
+        then:
+        1 * remoteProcessor.startProcessing()
+        1 * remoteProcessor.processTestClass(test1)
+        then:
+        1 * remoteProcessor.processTestClass(test2)
+        then:
+        1 * remoteProcessor.stop()
+        0 * remoteProcessor._
+    }
+
     def module(String module) {
         return Stub(Module) {
             _ * getImplementationClasspath() >> {
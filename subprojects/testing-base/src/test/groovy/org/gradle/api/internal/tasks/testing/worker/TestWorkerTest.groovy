@@ -76,4 +76,33 @@ public class TestWorkerTest extends ConcurrentSpec {
         1 * processor.processTestClass(test)
         1 * processor.stop()
     }
+
+    def "requests the next test class once it has finished the current one when pulling test classes"() {
+        def pullingWorker = new TestWorker(factory, true)
+        def testClassQueue = Mock(RemoteTestClassQueue)
+
+        when:
+        async {
+            pullingWorker.execute(workerContext)
+        }
+
+        then:
+        1 * factory.create(_) >> processor
+        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(RemoteTestClassQueue) >> testClassQueue
+        1 * connection.connect() >> {
+            start {
+                pullingWorker.startProcessing()
+                pullingWorker.processTestClass(test)
+                pullingWorker.stop()
+            }
+        }
+        1 * processor.processTestClass(test)
+
+        then:
+        1 * testClassQueue.requestTestClass()
+
+        then:
+        1 * processor.stop()
+    }
 }
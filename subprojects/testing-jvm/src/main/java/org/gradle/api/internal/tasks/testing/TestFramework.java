@@ -44,4 +44,10 @@ public interface TestFramework {
      * executed before starting each worker process.
      */
     Action<WorkerProcessBuilder> getWorkerConfigurationAction();
+
+    /**
+     * Returns whether the test class processor runs each test class when it is passed to {@link org.gradle.api.internal.tasks.testing.TestClassProcessor#processTestClass(TestClassRunInfo)},
+     * rather than collecting the test classes and running all of them when it is stopped.
+     */
+    boolean runsTestClassesWhenReceived();
 }
@@ -24,6 +24,8 @@
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.IoActions;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.slf4j.Logger;
@@ -34,33 +36,41 @@
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
+/**
+ * Detects test classes by parsing their class files. Test class files can be processed from multiple threads concurrently.
+ */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTestFrameworkDetector.class);
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
 
-    private List<File> testClassDirectories;
+    private volatile List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
 
     private Set<File> testClassesDirectories;
     private Set<File> testClasspath;
+    private TestClassDetectionCache detectionCache;
+    private FileHasher fileHasher;
 
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
     }
 
     protected abstract T createClassVisitor();
 
+    /**
+     * Returns the class file of the given super class from the test class directories, or null when it is not in one of them.
+     */
     private File getSuperTestClassFile(String superClassName) {
         prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
@@ -75,23 +85,15 @@ private File getSuperTestClassFile(String superClassName) {
             }
         }
 
-        if (superTestClassFile != null) {
-            return superTestClassFile;
-        } else if (JAVA_LANG_OBJECT.equals(superClassName)) {
-            // java.lang.Object found, which is not a test class
-            return null;
-        } else {
-            // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
-        }
+        return superTestClassFile;
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
 
-        testClassDirectories = new ArrayList<File>();
+        List<File> testClassDirectories = new ArrayList<File>();
 
         if (testClassesDirectories != null) {
             testClassDirectories.addAll(testClassesDirectories);
@@ -105,6 +107,7 @@ private void prepareClasspath() {
                 }
             }
         }
+        this.testClassDirectories = testClassDirectories;
     }
 
     @Override
@@ -117,7 +120,34 @@ public void setTestClasspath(Set<File> testClasspath) {
         this.testClasspath = testClasspath;
     }
 
-    private TestClass readClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
+    @Override
+    public void setDetectionCache(TestClassDetectionCache detectionCache, FileHasher fileHasher) {
+        this.detectionCache = detectionCache;
+        this.fileHasher = fileHasher;
+    }
+
+    private TestClass readClassFile(File testClassFile, boolean libraryClassFile, Factory<String> fallbackClassNameProvider) {
+        // Class files extracted from libraries are temporary files, which should not end up in the file hash cache
+        if (detectionCache == null || libraryClassFile) {
+            return parseClassFile(testClassFile, fallbackClassNameProvider);
+        }
+        HashCode classFileHash;
+        try {
+            classFileHash = fileHasher.hash(testClassFile);
+        } catch (Exception e) {
+            return parseClassFile(testClassFile, fallbackClassNameProvider);
+        }
+        TestClass testClass = detectionCache.get(getClass(), classFileHash);
+        if (testClass == null) {
+            testClass = parseClassFile(testClassFile, fallbackClassNameProvider);
+            if (testClass.isParseable()) {
+                detectionCache.put(getClass(), classFileHash, testClass);
+            }
+        }
+        return testClass;
+    }
+
+    private TestClass parseClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
         InputStream classStream = null;
@@ -136,7 +166,7 @@ private TestClass readClassFile(File testClassFile, Factory<String> fallbackClas
 
     @Override
     public boolean processTestClass(final RelativeFile testClassFile) {
-        return processTestClass(testClassFile.getFile(), false, new Factory<String>() {
+        return processTestClass(testClassFile.getFile(), false, false, new Factory<String>() {
             @Override
             public String create() {
                 return testClassFile.getRelativePath().getPathString().replace(".class", "");
@@ -149,8 +179,8 @@ public String create() {
      * class is a test class. First the package of the parent class is checked, if it is a java.lang or groovy.lang the class can't be a test class, otherwise the parent class is scanned. <p/> When a
      * parent class is a test class all the extending classes are marked as test classes.
      */
-    private boolean processTestClass(File testClassFile, boolean superClass, Factory<String> fallbackClassNameProvider) {
-        TestClass testClass = readClassFile(testClassFile, fallbackClassNameProvider);
+    private boolean processTestClass(File testClassFile, boolean superClass, boolean libraryClassFile, Factory<String> fallbackClassNameProvider) {
+        TestClass testClass = readClassFile(testClassFile, libraryClassFile, fallbackClassNameProvider);
 
         boolean isTest = testClass.isTest();
 
@@ -161,9 +191,16 @@ private boolean processTestClass(File testClassFile, boolean superClass, Factory
                 isTest = true;
             } else {
                 File superClassFile = getSuperTestClassFile(superClassName);
+                boolean libraryClass = false;
+
+                if (superClassFile == null && !JAVA_LANG_OBJECT.equals(superClassName)) {
+                    // super test class file not in test class directories
+                    superClassFile = classFileExtractionManager.getLibraryClassFile(superClassName);
+                    libraryClass = true;
+                }
 
                 if (superClassFile != null) {
-                    isTest = processSuperClass(superClassFile, superClassName);
+                    isTest = processSuperClass(superClassFile, superClassName, libraryClass);
                 } else {
                     LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
                         superClassName);
@@ -178,13 +215,13 @@ private boolean processTestClass(File testClassFile, boolean superClass, Factory
 
     protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
 
-    private boolean processSuperClass(File testClassFile, String superClassName) {
+    private boolean processSuperClass(File testClassFile, String superClassName, boolean libraryClassFile) {
         boolean isTest;
 
         Boolean isSuperTest = superClasses.get(testClassFile);
 
         if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true, Factories.constant(superClassName));
+            isTest = processTestClass(testClassFile, true, libraryClassFile, Factories.constant(superClassName));
 
             superClasses.put(testClassFile, isTest);
         } else {
@@ -210,25 +247,31 @@ public void startDetection(TestClassProcessor testClassProcessor) {
         this.testClassProcessor = testClassProcessor;
     }
 
-    private static class TestClass {
+    static class TestClass {
         private final boolean test;
         private final boolean isAbstract;
         private final String className;
         private final String superClassName;
+        private final boolean parseable;
 
         static TestClass forParseableFile(TestClassVisitor testClassVisitor) {
-            return new TestClass(testClassVisitor.isTest(), testClassVisitor.isAbstract(), testClassVisitor.getClassName(), testClassVisitor.getSuperClassName());
+            return new TestClass(testClassVisitor.isTest(), testClassVisitor.isAbstract(), testClassVisitor.getClassName(), testClassVisitor.getSuperClassName(), true);
         }
 
         static TestClass forUnparseableFile(String className) {
-            return new TestClass(true, false, className, null);
+            return new TestClass(true, false, className, null, false);
         }
 
-        private TestClass(boolean test, boolean isAbstract, String className, String superClassName) {
+        private TestClass(boolean test, boolean isAbstract, String className, String superClassName, boolean parseable) {
             this.test = test;
             this.isAbstract = isAbstract;
             this.className = className;
             this.superClassName = superClassName;
+            this.parseable = parseable;
+        }
+
+        boolean isParseable() {
+            return parseable;
         }
 
         boolean isTest() {
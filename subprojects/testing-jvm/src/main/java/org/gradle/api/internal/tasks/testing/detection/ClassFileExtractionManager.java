@@ -29,7 +29,7 @@
 import java.util.*;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages class file extraction from library jar files. It is safe to use from multiple threads.
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
@@ -51,7 +51,7 @@ public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             @Override
             public void receivePackage(String packageName) {
@@ -74,7 +74,7 @@ public void receivePackage(String packageName) {
      * @param className Name of the class to extract.
      * @return File that contains the extracted class file.
      */
-    public File getLibraryClassFile(final String className) {
+    public synchronized File getLibraryClassFile(final String className) {
         if (unextractableClasses.contains(className)) {
             return null;
         } else {
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
@@ -23,32 +24,58 @@
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When an executor factory is provided, the class files are handed to the test framework detector using multiple threads.
+ * The detected test classes are still passed on in the order the class files were visited, each as soon as the class files visited before it have been processed.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable ExecutorFactory executorFactory, int maxThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
     }
 
     @Override
     public void run() {
         if (testFrameworkDetector == null) {
             filenameScan();
-        } else {
+        } else if (executorFactory == null || maxThreads <= 1) {
             detectionScan();
+        } else {
+            parallelDetectionScan();
         }
     }
 
@@ -62,6 +89,60 @@ public void visitClassFile(FileVisitDetails fileDetails) {
         });
     }
 
+    private void parallelDetectionScan() {
+        final CollectingTestClassProcessor detectedTestClasses = new CollectingTestClassProcessor();
+        testFrameworkDetector.startDetection(detectedTestClasses);
+        final Deque<PendingClassFile> pendingClassFiles = new ArrayDeque<PendingClassFile>();
+        final ManagedExecutor executor = executorFactory.create("Test class scanner", maxThreads);
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                @Override
+                public void visitClassFile(final FileVisitDetails fileDetails) {
+                    FutureTask<Void> detection = new FutureTask<Void>(new Runnable() {
+                        @Override
+                        public void run() {
+                            testFrameworkDetector.processTestClass(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+                        }
+                    }, null);
+                    executor.execute(detection);
+                    pendingClassFiles.add(new PendingClassFile(getClassName(fileDetails), detection));
+                    // Pass on the test classes detected so far while the remaining class files are being visited
+                    while (!pendingClassFiles.isEmpty() && pendingClassFiles.peek().detection.isDone()) {
+                        passOn(pendingClassFiles.remove(), detectedTestClasses);
+                    }
+                }
+            });
+            while (!pendingClassFiles.isEmpty()) {
+                passOn(pendingClassFiles.remove(), detectedTestClasses);
+            }
+        } finally {
+            for (PendingClassFile pendingClassFile : pendingClassFiles) {
+                pendingClassFile.detection.cancel(false);
+            }
+            executor.stop();
+        }
+
+        // A class file whose name does not match its location, pass on in a stable order
+        for (TestClassRunInfo testClass : new TreeMap<String, TestClassRunInfo>(detectedTestClasses.testClasses).values()) {
+            testClassProcessor.processTestClass(testClass);
+        }
+    }
+
+    /**
+     * Waits for the detection of the given class file to complete, and passes on the test class detected in it, if any.
+     */
+    private void passOn(PendingClassFile classFile, CollectingTestClassProcessor detectedTestClasses) {
+        try {
+            Uninterruptibles.getUninterruptibly(classFile.detection);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        TestClassRunInfo testClass = detectedTestClasses.testClasses.remove(classFile.className);
+        if (testClass != null) {
+            testClassProcessor.processTestClass(testClass);
+        }
+    }
+
     private void filenameScan() {
         candidateClassFiles.visit(new ClassFileVisitor() {
             @Override
@@ -94,4 +175,35 @@ private boolean isClass(FileVisitDetails fileVisitDetails) {
     private String getClassName(FileVisitDetails fileDetails) {
         return fileDetails.getRelativePath().getPathString().replaceAll("\\.class", "").replace('/', '.');
     }
+
+    private static class PendingClassFile {
+        private final String className;
+        private final FutureTask<Void> detection;
+
+        PendingClassFile(String className, FutureTask<Void> detection) {
+            this.className = className;
+            this.detection = detection;
+        }
+    }
+
+    private static class CollectingTestClassProcessor implements TestClassProcessor {
+        private final Map<String, TestClassRunInfo> testClasses = new ConcurrentHashMap<String, TestClassRunInfo>();
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            testClasses.put(testClass.getTestClassName(), testClass);
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void stopNow() {
+        }
+    }
 }
@@ -30,25 +30,42 @@
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.RunLongestFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.SharedTestClassQueue;
+import org.gradle.api.internal.tasks.testing.processors.TestClassDurations;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Set;
 
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
+    /**
+     * When set, the durations of the test classes in the previous run are used to run the longest test classes first and to balance the test classes across forks.
+     */
+    public static final String BALANCE_BY_DURATION_PROPERTY = "org.gradle.unsafe.test.balance-by-duration";
+
+    /**
+     * When set, test workers request their next test class when they have finished the current one, instead of being assigned their test classes up front.
+     * Has no effect when test processes are restarted after a number of test classes, or for test frameworks that only run the test classes of a worker
+     * once they have all been received, such as JUnit Platform and TestNG.
+     */
+    public static final String PULL_TEST_CLASSES_PROPERTY = "org.gradle.unsafe.test.pull-test-classes";
 
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
@@ -61,11 +78,15 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final ExecutorFactory executorFactory;
+    private final FileHasher fileHasher;
+    private final TestClassDetectionCache detectionCache;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount,
-                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
+                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter,
+                               ExecutorFactory executorFactory, FileHasher fileHasher, TestClassDetectionCache detectionCache) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
@@ -75,6 +96,9 @@ public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory acto
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.executorFactory = executorFactory;
+        this.fileHasher = fileHasher;
+        this.detectionCache = detectionCache;
     }
 
     @Override
@@ -83,11 +107,12 @@ public void execute(final JvmTestExecutionSpec testExecutionSpec, TestResultProc
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final WorkerLeaseRegistry.WorkerLease currentWorkerLease = workerLeaseRegistry.getCurrentWorkerLease();
         final Set<File> classpath = ImmutableSet.copyOf(testExecutionSpec.getClasspath());
+        final SharedTestClassQueue testClassQueue = Boolean.getBoolean(PULL_TEST_CLASSES_PROPERTY) && testExecutionSpec.getForkEvery() == 0 && testFramework.runsTestClassesWhenReceived() ? new SharedTestClassQueue() : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             @Override
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, testClassQueue);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -96,10 +121,14 @@ public TestClassProcessor create() {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
             }
         };
-        processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        TestClassDurations durations = getTestClassDurations(testExecutionSpec);
+        TestClassProcessor orderedProcessor =
+            new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
+                new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory, durations, testClassQueue));
+        if (!durations.isEmpty()) {
+            orderedProcessor = new RunLongestFirstTestClassProcessor(durations, orderedProcessor);
+        }
+        processor = new PatternMatchTestClassProcessor(testFilter, orderedProcessor);
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -108,7 +137,8 @@ public TestClassProcessor create() {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClasses(testExecutionSpec.getTestClassesDirs().getFiles());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            testFrameworkDetector.setDetectionCache(detectionCache, fileHasher);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory, maxWorkerCount);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
@@ -125,6 +155,13 @@ public void stopNow() {
         }
     }
 
+    private TestClassDurations getTestClassDurations(JvmTestExecutionSpec testExecutionSpec) {
+        if (Boolean.getBoolean(BALANCE_BY_DURATION_PROPERTY)) {
+            return new TestClassDurations(testExecutionSpec.getPreviousTestClassDurations());
+        }
+        return new TestClassDurations(Collections.<String, Long>emptyMap());
+    }
+
     private int getMaxParallelForks(JvmTestExecutionSpec testExecutionSpec) {
         int maxParallelForks = testExecutionSpec.getMaxParallelForks();
         if (maxParallelForks > maxWorkerCount) {
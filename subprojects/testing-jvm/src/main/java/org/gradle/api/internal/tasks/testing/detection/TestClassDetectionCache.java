@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.cache.internal.CrossBuildInMemoryCache;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import javax.annotation.Nullable;
+
+/**
+ * Remembers what a test framework detector found in a class file across builds, keyed by the content of the class file,
+ * so that unchanged class files do not need to be read and parsed again when scanning for test classes.
+ */
+public class TestClassDetectionCache {
+    private final CrossBuildInMemoryCache<HashCode, AbstractTestFrameworkDetector.TestClass> cache;
+
+    public TestClassDetectionCache(CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.cache = cacheFactory.newCache();
+    }
+
+    @Nullable
+    AbstractTestFrameworkDetector.TestClass get(Class<?> detectorType, HashCode classFileHash) {
+        return cache.get(key(detectorType, classFileHash));
+    }
+
+    void put(Class<?> detectorType, HashCode classFileHash, AbstractTestFrameworkDetector.TestClass testClass) {
+        cache.put(key(detectorType, classFileHash), testClass);
+    }
+
+    private static HashCode key(Class<?> detectorType, HashCode classFileHash) {
+        // Each detector looks for different things in a class file
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(detectorType.getName());
+        hasher.putHash(classFileHash);
+        return hasher.hash();
+    }
+}
@@ -17,6 +17,7 @@
 
 import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.internal.hash.FileHasher;
 
 import java.io.File;
 import java.util.Set;
@@ -29,4 +30,6 @@ public interface TestFrameworkDetector {
     void setTestClasses(Set<File> testClasses);
 
     void setTestClasspath(Set<File> classpath);
+
+    void setDetectionCache(TestClassDetectionCache detectionCache, FileHasher fileHasher);
 }
@@ -63,6 +63,11 @@ public void execute(WorkerProcessBuilder workerProcessBuilder) {
         };
     }
 
+    @Override
+    public boolean runsTestClassesWhenReceived() {
+        return true;
+    }
+
     @Override
     public JUnitOptions getOptions() {
         return options;
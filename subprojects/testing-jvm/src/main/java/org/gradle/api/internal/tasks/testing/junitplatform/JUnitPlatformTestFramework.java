@@ -65,6 +65,12 @@ public void execute(@Nonnull WorkerProcessBuilder workerProcessBuilder) {
         };
     }
 
+    @Override
+    public boolean runsTestClassesWhenReceived() {
+        // All test classes are run in a single launcher request when the processor is stopped
+        return false;
+    }
+
     @Override
     public JUnitPlatformOptions getOptions() {
         return options;
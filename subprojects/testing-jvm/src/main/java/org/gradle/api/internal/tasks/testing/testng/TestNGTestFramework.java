@@ -122,6 +122,12 @@ public void execute(WorkerProcessBuilder workerProcessBuilder) {
         };
     }
 
+    @Override
+    public boolean runsTestClassesWhenReceived() {
+        // All test classes are run in a single TestNG suite when the processor is stopped
+        return false;
+    }
+
     @Override
     public TestNGOptions getOptions() {
         return options;
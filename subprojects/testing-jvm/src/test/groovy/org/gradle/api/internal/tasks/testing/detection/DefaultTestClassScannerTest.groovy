@@ -21,7 +21,12 @@ import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.RelativeFile
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.hash.FileHasher
 import org.junit.Test
 import spock.lang.Specification
 import spock.lang.Subject
@@ -78,7 +83,89 @@ class DefaultTestClassScannerTest extends Specification {
         0 * _._
     }
 
+    def "passes detected test classes on in visit order when detecting in parallel"() {
+        def published = []
+        def processor = Stub(TestClassProcessor) {
+            processTestClass(_) >> { TestClassRunInfo testClass -> published << testClass.testClassName }
+        }
+        def executorFactory = new DefaultExecutorFactory()
+        def scanner = new DefaultTestClassScanner(files, new SlowTestFrameworkDetector(), processor, executorFactory, 4)
+        def classNames = (1..20).collect { "Class$it" as String }
+
+        when:
+        scanner.run()
+
+        then:
+        1 * files.visit(_) >> { FileVisitor visitor ->
+            classNames.each { visitor.visitFile(stubFileVisitDetails(it)) }
+        }
+        published == classNames - 'Class7'
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    def "passes detected test classes on before all class files have been visited when detecting in parallel"() {
+        def published = []
+        def processor = Stub(TestClassProcessor) {
+            processTestClass(_) >> { TestClassRunInfo testClass -> published << testClass.testClassName }
+        }
+        def executorFactory = new DefaultExecutorFactory()
+        def scanner = new DefaultTestClassScanner(files, new SlowTestFrameworkDetector(), processor, executorFactory, 4)
+        def publishedBeforeLastClassFile = null
+
+        when:
+        scanner.run()
+
+        then:
+        1 * files.visit(_) >> { FileVisitor visitor ->
+            visitor.visitFile(stubFileVisitDetails("Class30"))
+            Thread.sleep(200)
+            visitor.visitFile(stubFileVisitDetails("Class29"))
+            publishedBeforeLastClassFile = published.clone()
+            visitor.visitFile(stubFileVisitDetails("Class28"))
+        }
+        publishedBeforeLastClassFile == ['Class30']
+        published == ['Class30', 'Class29', 'Class28']
+
+        cleanup:
+        executorFactory.stop()
+    }
+
     FileVisitDetails stubFileVisitDetails(String className) {
         return new DefaultFileVisitDetails(new File("${className}.class"), new RelativePath(false, "${className}.class"), null, null, null)
     }
+
+    static class SlowTestFrameworkDetector implements TestFrameworkDetector {
+        TestClassProcessor testClassProcessor
+
+        @Override
+        void startDetection(TestClassProcessor testClassProcessor) {
+            this.testClassProcessor = testClassProcessor
+        }
+
+        @Override
+        boolean processTestClass(RelativeFile testClassFile) {
+            def className = testClassFile.file.name - '.class'
+            // Finish the first class files last
+            Thread.sleep(Math.max(0, 30 - className.substring(5).toInteger()))
+            if (className == 'Class7') {
+                return false
+            }
+            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className))
+            return true
+        }
+
+        @Override
+        void setTestClasses(Set<File> testClasses) {
+        }
+
+        @Override
+        void setTestClasspath(Set<File> classpath) {
+        }
+
+        @Override
+        void setDetectionCache(TestClassDetectionCache detectionCache, FileHasher fileHasher) {
+        }
+    }
 }
@@ -28,6 +28,7 @@ dependencies {
     implementation(project(":baseServices"))
     implementation(project(":messaging"))
     implementation(project(":logging"))
+    implementation(project(":persistentCache"))
     implementation(project(":processServices"))
     implementation(project(":fileCollections"))
     implementation(project(":jvmServices"))